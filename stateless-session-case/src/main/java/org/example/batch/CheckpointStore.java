@@ -0,0 +1,51 @@
+package org.example.batch;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Persists completed chunks in the {@code batch_checkpoint} table. Each row covers the id range
+ * {@code (start_id, end_id]} of one committed chunk.
+ */
+class CheckpointStore {
+
+    /**
+     * @return completed chunks of the job, keyed by start id and mapped to end id, ordered by start id
+     */
+    NavigableMap<Long, Long> load(Connection connection, String jobName) throws SQLException {
+        NavigableMap<Long, Long> completed = new TreeMap<>();
+        try (PreparedStatement ps = connection.prepareStatement(
+                "SELECT start_id, end_id FROM batch_checkpoint WHERE job_name = ?")) {
+            ps.setString(1, jobName);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    completed.put(rs.getLong(1), rs.getLong(2));
+                }
+            }
+        }
+        return completed;
+    }
+
+    void save(Connection connection, String jobName, long startId, long endId, int itemCount) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO batch_checkpoint (job_name, start_id, end_id, item_count, committed_at) "
+                        + "VALUES (?, ?, ?, ?, CURRENT_TIMESTAMP)")) {
+            ps.setString(1, jobName);
+            ps.setLong(2, startId);
+            ps.setLong(3, endId);
+            ps.setInt(4, itemCount);
+            ps.executeUpdate();
+        }
+    }
+
+    void clear(Connection connection, String jobName) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement("DELETE FROM batch_checkpoint WHERE job_name = ?")) {
+            ps.setString(1, jobName);
+            ps.executeUpdate();
+        }
+    }
+}
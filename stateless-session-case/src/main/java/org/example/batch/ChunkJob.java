@@ -0,0 +1,302 @@
+package org.example.batch;
+
+import org.example.cdc.ChangeEventPublisher;
+import org.example.cdc.StatelessSessionChangeCapture;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Chunk-oriented batch job: read → process → write, committing once per chunk.
+ *
+ * The reader runs on the calling thread with its own {@link StatelessSession} and cuts the input
+ * into id ranges of {@code chunkSize} items. Each chunk is processed and written on a worker thread
+ * inside its own {@link TransactionTemplate} transaction; the writer gets a {@code StatelessSession}
+ * on that transaction's connection, and the chunk's row in {@code batch_checkpoint} is inserted in
+ * the same transaction, so a chunk is either fully written and checkpointed or not at all.
+ *
+ * If a run fails, the chunks that did commit stay checkpointed and the next {@link #run()} of a job
+ * with the same name skips them without reading them again. Checkpoints are id ranges, not chunk
+ * positions: the restarted run reads only the gaps between committed ranges, bounding each read at the
+ * start of the next committed range, so rows inserted, deleted or no longer matching in a gap shift the
+ * new chunk boundaries without causing committed rows to be written again. A run that completes
+ * removes its checkpoints, so the next run starts from the beginning.
+ *
+ * Failures are handled per chunk:
+ * <ul>
+ *     <li>a processor exception matching a skippable type drops that item;</li>
+ *     <li>a write failure matching a retryable type re-runs the chunk transaction up to {@code retryLimit} times;</li>
+ *     <li>a write failure that is still skippable after the retries is narrowed down by writing the
+ *     chunk one item per transaction and dropping the items that fail. These single-item commits are
+ *     not covered by the checkpoint, so a crash in the middle re-writes them on restart.</li>
+ * </ul>
+ * Skipped items count against a job-wide {@code skipLimit}; anything else fails the job.
+ *
+ * Stateless writes bypass Hibernate's event listeners. With a {@link ChangeEventPublisher} set, the
+ * writer's session records its {@code insert}/{@code update}/{@code delete} calls and publishes them once
+ * the chunk transaction commits; without one, the job publishes no change events.
+ *
+ * With {@code threads > 1} chunks run in parallel, each holding one pooled connection while it
+ * writes plus one for the reader, so keep {@code threads} below the pool's maximum size.
+ */
+public class ChunkJob<I, O> {
+
+    private final String name;
+    private final SessionFactory sessionFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final ItemReader<I> reader;
+    private final ItemProcessor<I, O> processor;
+    private final ItemWriter<O> writer;
+    private final CheckpointStore checkpoints = new CheckpointStore();
+
+    private int chunkSize = 100;
+    private int threads = 1;
+    private int retryLimit = 0;
+    private int skipLimit = 0;
+    private ChangeEventPublisher changeEventPublisher;
+    private final List<Class<? extends Throwable>> retryableExceptions = new ArrayList<>();
+    private final List<Class<? extends Throwable>> skippableExceptions = new ArrayList<>();
+
+    public ChunkJob(String name, SessionFactory sessionFactory, TransactionTemplate transactionTemplate,
+                    ItemReader<I> reader, ItemProcessor<I, O> processor, ItemWriter<O> writer) {
+        this.name = name;
+        this.sessionFactory = sessionFactory;
+        this.transactionTemplate = transactionTemplate;
+        this.reader = reader;
+        this.processor = processor;
+        this.writer = writer;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public void setRetryLimit(int retryLimit) {
+        this.retryLimit = retryLimit;
+    }
+
+    public void setSkipLimit(int skipLimit) {
+        this.skipLimit = skipLimit;
+    }
+
+    public void setChangeEventPublisher(ChangeEventPublisher changeEventPublisher) {
+        this.changeEventPublisher = changeEventPublisher;
+    }
+
+    /**
+     * Write failures caused by this type (anywhere in the cause chain) are retried.
+     */
+    public void addRetryableException(Class<? extends Throwable> type) {
+        retryableExceptions.add(type);
+    }
+
+    /**
+     * Processor and write failures caused by this type (anywhere in the cause chain) skip the item.
+     */
+    public void addSkippableException(Class<? extends Throwable> type) {
+        skippableExceptions.add(type);
+    }
+
+    /**
+     * Runs the job, resuming after the chunks checkpointed by a previous failed run.
+     *
+     * @throws IllegalStateException if a chunk failed; chunks committed so far stay checkpointed
+     */
+    public JobReport run() {
+        JobReport report = new JobReport(name);
+        long startTime = System.nanoTime();
+
+        NavigableMap<Long, Long> completed = inTransaction(session ->
+                session.doReturningWork(connection -> checkpoints.load(connection, name)));
+        AtomicInteger skipCount = new AtomicInteger();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        // bounds the chunks held in memory while workers are busy
+        Semaphore inFlight = new Semaphore(threads * 2);
+        try (StatelessSession readSession = sessionFactory.openStatelessSession()) {
+            long afterId = 0;
+            while (failure.get() == null) {
+                // a committed range (start, end] with start <= afterId < end covers the next ids
+                Map.Entry<Long, Long> covering = completed.floorEntry(afterId);
+                if (covering != null && afterId < covering.getValue()) {
+                    report.chunksSkippedOnRestartCounter().incrementAndGet();
+                    afterId = covering.getValue();
+                    continue;
+                }
+                Long nextCommittedStart = completed.higherKey(afterId);
+                long maxId = nextCommittedStart != null ? nextCommittedStart : Long.MAX_VALUE;
+
+                long readStart = System.nanoTime();
+                List<I> items = reader.read(readSession, afterId, maxId, chunkSize);
+                report.getRead().record(items.size(), System.nanoTime() - readStart);
+                if (items.isEmpty()) {
+                    if (nextCommittedStart == null) {
+                        break;
+                    }
+                    // the gap in front of the next committed range is exhausted
+                    afterId = nextCommittedStart;
+                    continue;
+                }
+
+                long chunkStart = afterId;
+                long chunkEnd = reader.idOf(items.get(items.size() - 1));
+                inFlight.acquireUninterruptibly();
+                pool.execute(() -> {
+                    try {
+                        if (failure.get() == null) {
+                            executeChunk(chunkStart, chunkEnd, items, skipCount, report);
+                        }
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+                afterId = chunkEnd;
+            }
+        } finally {
+            pool.shutdown();
+            awaitTermination(pool);
+        }
+        report.setElapsedNanos(System.nanoTime() - startTime);
+
+        if (failure.get() != null) {
+            throw new IllegalStateException("Job " + name + " failed after " + report.getChunksCommitted()
+                    + " chunks; run it again to resume from the checkpoint", failure.get());
+        }
+        inTransaction(session -> {
+            session.doWork(connection -> checkpoints.clear(connection, name));
+            return null;
+        });
+        return report;
+    }
+
+    private void executeChunk(long startId, long endId, List<I> items, AtomicInteger skipCount, JobReport report)
+            throws Exception {
+        long processStart = System.nanoTime();
+        List<O> output = new ArrayList<>(items.size());
+        for (I item : items) {
+            O result;
+            try {
+                result = processor.process(item);
+            } catch (Exception e) {
+                skip(e, skipCount, report);
+                continue;
+            }
+            if (result == null) {
+                report.itemsFilteredCounter().incrementAndGet();
+            } else {
+                output.add(result);
+            }
+        }
+        report.getProcess().record(items.size(), System.nanoTime() - processStart);
+
+        long writeStart = System.nanoTime();
+        for (int attempt = 0; ; attempt++) {
+            try {
+                write(output, startId, endId, items.size());
+                break;
+            } catch (RuntimeException e) {
+                if (attempt < retryLimit && matches(e, retryableExceptions)) {
+                    report.retriesCounter().incrementAndGet();
+                    continue;
+                }
+                if (skipLimit > 0 && matches(e, skippableExceptions)) {
+                    writeItemByItem(output, startId, endId, items.size(), skipCount, report);
+                    break;
+                }
+                throw e;
+            }
+        }
+        report.getWrite().record(output.size(), System.nanoTime() - writeStart);
+        report.chunksCommittedCounter().incrementAndGet();
+    }
+
+    private void writeItemByItem(List<O> output, long startId, long endId, int itemCount,
+                                 AtomicInteger skipCount, JobReport report) {
+        for (O item : output) {
+            try {
+                write(Collections.singletonList(item), null, null, 0);
+            } catch (RuntimeException e) {
+                skip(e, skipCount, report);
+            }
+        }
+        write(Collections.emptyList(), startId, endId, itemCount);
+    }
+
+    /**
+     * Writes the items and, when a range is given, the chunk checkpoint in one transaction.
+     */
+    private void write(List<O> items, Long startId, Long endId, int itemCount) {
+        inTransaction(session -> {
+            session.doWork(connection -> {
+                try (StatelessSession statelessSession = sessionFactory.openStatelessSession(connection)) {
+                    writer.write(writerSession(statelessSession), items);
+                }
+                if (startId != null) {
+                    checkpoints.save(connection, name, startId, endId, itemCount);
+                }
+            });
+            return null;
+        });
+    }
+
+    private StatelessSession writerSession(StatelessSession statelessSession) {
+        if (changeEventPublisher == null) {
+            return statelessSession;
+        }
+        return new StatelessSessionChangeCapture(statelessSession, changeEventPublisher).asStatelessSession();
+    }
+
+    private <T> T inTransaction(SessionCallback<T> callback) {
+        return transactionTemplate.execute(status -> callback.doInSession(sessionFactory.getCurrentSession()));
+    }
+
+    private <E extends Exception> void skip(E e, AtomicInteger skipCount, JobReport report) throws E {
+        if (!matches(e, skippableExceptions) || skipCount.incrementAndGet() > skipLimit) {
+            throw e;
+        }
+        report.itemsSkippedCounter().incrementAndGet();
+    }
+
+    private static boolean matches(Throwable e, List<Class<? extends Throwable>> types) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            for (Class<? extends Throwable> type : types) {
+                if (type.isInstance(t)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void awaitTermination(ExecutorService pool) {
+        try {
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private interface SessionCallback<T> {
+        T doInSession(Session session);
+    }
+}
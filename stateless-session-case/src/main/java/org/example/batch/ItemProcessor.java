@@ -0,0 +1,8 @@
+package org.example.batch;
+
+/**
+ * Transforms one item read by a {@link ChunkJob}. Returning null filters the item out.
+ */
+public interface ItemProcessor<I, O> {
+    O process(I item) throws Exception;
+}
@@ -0,0 +1,22 @@
+package org.example.batch;
+
+import org.hibernate.StatelessSession;
+
+import java.util.List;
+
+/**
+ * Reads the input of a {@link ChunkJob} in id order, one chunk at a time.
+ *
+ * Reads must be keyset based: return up to {@code chunkSize} items whose id is greater than
+ * {@code afterId} and at most {@code maxId}, ordered by id. That is what lets a restarted job
+ * continue from its checkpoints and stop in front of id ranges an earlier run already committed.
+ */
+public interface ItemReader<I> {
+
+    /**
+     * @param maxId inclusive upper bound, {@link Long#MAX_VALUE} when the rest of the input is wanted
+     */
+    List<I> read(StatelessSession session, long afterId, long maxId, int chunkSize);
+
+    long idOf(I item);
+}
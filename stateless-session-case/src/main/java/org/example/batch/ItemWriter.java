@@ -0,0 +1,14 @@
+package org.example.batch;
+
+import org.hibernate.StatelessSession;
+
+import java.util.List;
+
+/**
+ * Writes one chunk of a {@link ChunkJob}. The session runs on the chunk transaction's connection,
+ * so everything written here commits or rolls back together with the chunk checkpoint. When the job has
+ * a change event publisher, its {@code insert}/{@code update}/{@code delete} calls are published after commit.
+ */
+public interface ItemWriter<O> {
+    void write(StatelessSession session, List<O> items);
+}
@@ -0,0 +1,143 @@
+package org.example.batch;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of one {@link ChunkJob} run.
+ *
+ * Stage throughput is items per second of time spent inside that stage, summed over all worker
+ * threads, so the stage with the lowest rate is the bottleneck regardless of the thread count.
+ */
+public class JobReport {
+
+    public static class Stage {
+        private final String name;
+        private final AtomicLong items = new AtomicLong();
+        private final AtomicLong nanos = new AtomicLong();
+
+        Stage(String name) {
+            this.name = name;
+        }
+
+        void record(long itemCount, long elapsedNanos) {
+            items.addAndGet(itemCount);
+            nanos.addAndGet(elapsedNanos);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getItems() {
+            return items.get();
+        }
+
+        public long getNanos() {
+            return nanos.get();
+        }
+
+        public double getItemsPerSecond() {
+            long elapsed = nanos.get();
+            return elapsed == 0 ? 0 : items.get() * 1_000_000_000d / elapsed;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d items in %d ms (%.0f rows/sec)",
+                    name, items.get(), nanos.get() / 1_000_000, getItemsPerSecond());
+        }
+    }
+
+    private final String jobName;
+    private final Stage read = new Stage("read");
+    private final Stage process = new Stage("process");
+    private final Stage write = new Stage("write");
+    private final AtomicLong chunksCommitted = new AtomicLong();
+    private final AtomicLong chunksSkippedOnRestart = new AtomicLong();
+    private final AtomicLong itemsSkipped = new AtomicLong();
+    private final AtomicLong itemsFiltered = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private volatile long elapsedNanos;
+
+    JobReport(String jobName) {
+        this.jobName = jobName;
+    }
+
+    public String getJobName() {
+        return jobName;
+    }
+
+    public Stage getRead() {
+        return read;
+    }
+
+    public Stage getProcess() {
+        return process;
+    }
+
+    public Stage getWrite() {
+        return write;
+    }
+
+    public long getChunksCommitted() {
+        return chunksCommitted.get();
+    }
+
+    /**
+     * Chunks that were already checkpointed by an earlier, failed run and therefore not read again.
+     */
+    public long getChunksSkippedOnRestart() {
+        return chunksSkippedOnRestart.get();
+    }
+
+    public long getItemsSkipped() {
+        return itemsSkipped.get();
+    }
+
+    public long getItemsFiltered() {
+        return itemsFiltered.get();
+    }
+
+    public long getRetries() {
+        return retries.get();
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    AtomicLong chunksCommittedCounter() {
+        return chunksCommitted;
+    }
+
+    AtomicLong chunksSkippedOnRestartCounter() {
+        return chunksSkippedOnRestart;
+    }
+
+    AtomicLong itemsSkippedCounter() {
+        return itemsSkipped;
+    }
+
+    AtomicLong itemsFilteredCounter() {
+        return itemsFiltered;
+    }
+
+    AtomicLong retriesCounter() {
+        return retries;
+    }
+
+    void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "Job " + jobName + " took " + elapsedNanos / 1_000_000 + "ms"
+                + ", chunks committed=" + chunksCommitted
+                + ", chunks skipped on restart=" + chunksSkippedOnRestart
+                + ", items skipped=" + itemsSkipped
+                + ", items filtered=" + itemsFiltered
+                + ", retries=" + retries
+                + "\n  " + read + "\n  " + process + "\n  " + write;
+    }
+}
@@ -0,0 +1,38 @@
+package org.example.batch;
+
+import org.example.entity.User;
+import org.hibernate.StatelessSession;
+
+import java.util.List;
+
+/**
+ * Reads {@link User} rows in id order, optionally restricted to names matching a LIKE pattern.
+ */
+public class UserItemReader implements ItemReader<User> {
+
+    private final String namePattern;
+
+    public UserItemReader() {
+        this("%");
+    }
+
+    public UserItemReader(String namePattern) {
+        this.namePattern = namePattern;
+    }
+
+    @Override
+    public List<User> read(StatelessSession session, long afterId, long maxId, int chunkSize) {
+        return session.createQuery(
+                "FROM User WHERE id > :afterId AND id <= :maxId AND name LIKE :name ORDER BY id", User.class)
+                .setParameter("afterId", afterId)
+                .setParameter("maxId", maxId)
+                .setParameter("name", namePattern)
+                .setMaxResults(chunkSize)
+                .list();
+    }
+
+    @Override
+    public long idOf(User item) {
+        return item.getId();
+    }
+}
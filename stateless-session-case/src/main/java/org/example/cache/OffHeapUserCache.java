@@ -0,0 +1,346 @@
+package org.example.cache;
+
+import org.example.entity.User;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Near-cache for {@link User} rows that keeps the row data outside the Java heap.
+ *
+ * Rows are serialized into fixed-size slots of a single direct {@link ByteBuffer}. Slots are found
+ * through an open-addressing table keyed by primitive {@code long} ids (linear probing, backward-shift
+ * deletion), so a cached user costs a few dozen bytes of heap instead of a boxed key, a map entry,
+ * an entity and two strings. When every slot is taken the CLOCK algorithm picks the victim.
+ *
+ * {@link #get(Long)} returns a fresh, detached {@code User} on every hit. All operations are
+ * synchronized on the cache instance.
+ *
+ * Entries are dropped by {@link #invalidate(Long)}, which {@link UserCacheInvalidator} calls
+ * synchronously after every committed {@code Session} update or delete of a user. Writes that bypass
+ * the Hibernate event system - HQL bulk {@code UPDATE}/{@code DELETE}, native SQL and
+ * {@code StatelessSession} - are not seen, so a {@link #setTimeToLive time to live} bounds how long
+ * such a change can stay hidden; code doing those writes can also call {@link #invalidate} or {@link #clear}.
+ *
+ * A load that races with an invalidation must not put the row it read before the change:
+ * read {@link #invalidationStamp()} before loading and store with {@link #putIfNotInvalidatedSince}.
+ */
+public class OffHeapUserCache {
+
+    // each string is stored as a 2 byte length prefix followed by UTF-8 bytes; this length marks null
+    private static final int NULL_LENGTH = -1;
+
+    private final int slotSize;
+    private final int maxEntries;
+    private final ByteBuffer arena;
+
+    // open-addressing index: id -> slot + 1, 0 marks an empty bucket
+    private final long[] indexKeys;
+    private final int[] indexSlots;
+    private final int indexMask;
+
+    // per slot bookkeeping for eviction
+    private final long[] slotIds;
+    private final long[] slotLoadedAt;
+    private final boolean[] referenced;
+    private final int[] freeSlots;
+    private int freeCount;
+    private int nextUnusedSlot;
+    private int clockHand;
+
+    private long timeToLiveNanos;
+    // bumped by every invalidation, see putIfNotInvalidatedSince
+    private long invalidations;
+
+    private int size;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param maxEntries number of users the cache can hold
+     * @param slotSize   bytes reserved per user; rows whose name and email do not fit are not cached
+     */
+    public OffHeapUserCache(int maxEntries, int slotSize) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive, got " + maxEntries);
+        }
+        if (slotSize < 4 || slotSize > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("slotSize must be between 4 and " + Short.MAX_VALUE + " bytes, got " + slotSize);
+        }
+        this.maxEntries = maxEntries;
+        this.slotSize = slotSize;
+        this.arena = ByteBuffer.allocateDirect(Math.multiplyExact(maxEntries, slotSize));
+
+        // keep the load factor at or below 0.5
+        int indexCapacity = Integer.highestOneBit(Math.max(2, maxEntries) * 2 - 1) << 1;
+        this.indexKeys = new long[indexCapacity];
+        this.indexSlots = new int[indexCapacity];
+        this.indexMask = indexCapacity - 1;
+
+        this.slotIds = new long[maxEntries];
+        this.slotLoadedAt = new long[maxEntries];
+        this.referenced = new boolean[maxEntries];
+        this.freeSlots = new int[maxEntries];
+    }
+
+    /**
+     * Entries older than this are treated as misses. Zero, the default, keeps entries until they are
+     * invalidated or evicted.
+     */
+    public synchronized void setTimeToLive(long duration, TimeUnit unit) {
+        this.timeToLiveNanos = unit.toNanos(duration);
+    }
+
+    /**
+     * @return a detached copy of the cached user, or null on a miss
+     */
+    public synchronized User get(Long id) {
+        if (id == null) {
+            return null;
+        }
+        int bucket = find(id);
+        if (bucket < 0) {
+            misses++;
+            return null;
+        }
+        int slot = indexSlots[bucket] - 1;
+        if (timeToLiveNanos > 0 && System.nanoTime() - slotLoadedAt[slot] > timeToLiveNanos) {
+            remove(id);
+            misses++;
+            return null;
+        }
+        hits++;
+        referenced[slot] = true;
+        return read(slot, id);
+    }
+
+    public synchronized void put(User user) {
+        Long id = user.getId();
+        if (id == null) {
+            return;
+        }
+        byte[] name = encode(user.getName());
+        byte[] email = encode(user.getEmail());
+        if (4 + length(name) + length(email) > slotSize) {
+            remove(id);
+            return;
+        }
+
+        int bucket = find(id);
+        int slot;
+        if (bucket >= 0) {
+            slot = indexSlots[bucket] - 1;
+        } else {
+            slot = allocateSlot();
+            slotIds[slot] = id;
+            insertIndex(id, slot);
+            size++;
+        }
+        write(slot, name, email);
+        slotLoadedAt[slot] = System.nanoTime();
+        referenced[slot] = true;
+    }
+
+    /**
+     * Current invalidation counter; read it before loading a user from the database.
+     */
+    public synchronized long invalidationStamp() {
+        return invalidations;
+    }
+
+    /**
+     * Caches {@code user} unless any user was invalidated since {@code stamp} was read, in which case
+     * the row may predate a committed change and is dropped.
+     *
+     * @return true if the user was cached
+     */
+    public synchronized boolean putIfNotInvalidatedSince(User user, long stamp) {
+        if (invalidations != stamp) {
+            return false;
+        }
+        put(user);
+        return true;
+    }
+
+    public synchronized void invalidate(Long id) {
+        // counted even when the id is not cached: a concurrent load may be about to put it
+        invalidations++;
+        if (id != null) {
+            remove(id);
+        }
+    }
+
+    public synchronized void clear() {
+        invalidations++;
+        Arrays.fill(indexSlots, 0);
+        Arrays.fill(referenced, false);
+        freeCount = 0;
+        nextUnusedSlot = 0;
+        clockHand = 0;
+        size = 0;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Bytes reserved outside the heap for row data.
+     */
+    public long getOffHeapBytes() {
+        return arena.capacity();
+    }
+
+    /**
+     * Approximate heap bytes taken by the index and per-slot bookkeeping arrays.
+     */
+    public long getIndexHeapBytes() {
+        return indexKeys.length * 8L + indexSlots.length * 4L
+                + slotIds.length * 8L + slotLoadedAt.length * 8L + referenced.length + freeSlots.length * 4L;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    private int allocateSlot() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (nextUnusedSlot < maxEntries) {
+            return nextUnusedSlot++;
+        }
+        // CLOCK: give referenced slots a second chance, evict the first one that was not touched
+        while (true) {
+            int slot = clockHand;
+            clockHand = (clockHand + 1) % maxEntries;
+            if (referenced[slot]) {
+                referenced[slot] = false;
+            } else {
+                removeIndex(find(slotIds[slot]));
+                size--;
+                evictions++;
+                return slot;
+            }
+        }
+    }
+
+    private void remove(long id) {
+        int bucket = find(id);
+        if (bucket < 0) {
+            return;
+        }
+        int slot = indexSlots[bucket] - 1;
+        removeIndex(bucket);
+        referenced[slot] = false;
+        freeSlots[freeCount++] = slot;
+        size--;
+    }
+
+    private int find(long id) {
+        int bucket = hash(id) & indexMask;
+        while (indexSlots[bucket] != 0) {
+            if (indexKeys[bucket] == id) {
+                return bucket;
+            }
+            bucket = (bucket + 1) & indexMask;
+        }
+        return -1;
+    }
+
+    private void insertIndex(long id, int slot) {
+        int bucket = hash(id) & indexMask;
+        while (indexSlots[bucket] != 0) {
+            bucket = (bucket + 1) & indexMask;
+        }
+        indexKeys[bucket] = id;
+        indexSlots[bucket] = slot + 1;
+    }
+
+    // backward-shift deletion keeps probe sequences intact without tombstones
+    private void removeIndex(int bucket) {
+        int hole = bucket;
+        int next = (hole + 1) & indexMask;
+        while (indexSlots[next] != 0) {
+            int home = hash(indexKeys[next]) & indexMask;
+            // move the entry back if its home bucket is not in (hole, next]
+            if (((next - home) & indexMask) >= ((next - hole) & indexMask)) {
+                indexKeys[hole] = indexKeys[next];
+                indexSlots[hole] = indexSlots[next];
+                hole = next;
+            }
+            next = (next + 1) & indexMask;
+        }
+        indexSlots[hole] = 0;
+    }
+
+    private void write(int slot, byte[] name, byte[] email) {
+        int offset = slot * slotSize;
+        offset = writeString(offset, name);
+        writeString(offset, email);
+    }
+
+    private int writeString(int offset, byte[] value) {
+        if (value == null) {
+            arena.putShort(offset, (short) NULL_LENGTH);
+            return offset + 2;
+        }
+        arena.putShort(offset, (short) value.length);
+        // callers hold the monitor, so moving the shared position is safe
+        arena.position(offset + 2);
+        arena.put(value);
+        return offset + 2 + value.length;
+    }
+
+    private User read(int slot, Long id) {
+        int offset = slot * slotSize;
+        int nameLength = arena.getShort(offset);
+        String name = readString(offset + 2, nameLength);
+        offset += 2 + Math.max(nameLength, 0);
+        String email = readString(offset + 2, arena.getShort(offset));
+
+        User user = new User();
+        user.setId(id);
+        user.setName(name);
+        user.setEmail(email);
+        return user;
+    }
+
+    private String readString(int offset, int length) {
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        arena.position(offset);
+        arena.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] encode(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int length(byte[] value) {
+        return value == null ? 0 : value.length;
+    }
+
+    private static int hash(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,77 @@
+package org.example.cache;
+
+import org.example.entity.User;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+
+/**
+ * Drops users from an {@link OffHeapUserCache} as soon as a {@code Session} update or delete of them commits.
+ *
+ * Hibernate runs post-commit listeners on the committing thread before {@code commit()} returns, so a
+ * later read on the same thread never sees the old row. Rolled back changes leave the cache alone.
+ */
+public class UserCacheInvalidator implements PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    private final transient OffHeapUserCache cache;
+
+    public UserCacheInvalidator(OffHeapUserCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Appends this listener to the post-commit update and delete events of the session factory.
+     */
+    public void register(SessionFactory sessionFactory) {
+        EventListenerRegistry registry = sessionFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        // other listeners can make Hibernate call this for any entity
+        if (requiresPostCommitHandling(event.getPersister())) {
+            cache.invalidate((Long) event.getId());
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (requiresPostCommitHandling(event.getPersister())) {
+            cache.invalidate((Long) event.getId());
+        }
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+        // nothing was committed, the cached row is still current
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+        // nothing was committed, the cached row is still current
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return User.class.equals(persister.getMappedClass());
+    }
+
+    /**
+     * Still abstract in Hibernate 5.4; only {@link #requiresPostCommitHandling} is called.
+     */
+    @Override
+    @Deprecated
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return requiresPostCommitHandling(persister);
+    }
+}
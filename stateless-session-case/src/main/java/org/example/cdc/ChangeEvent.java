@@ -0,0 +1,50 @@
+package org.example.cdc;
+
+import java.io.Serializable;
+
+/**
+ * A committed insert, update or delete of a single entity row.
+ */
+public class ChangeEvent {
+
+    public enum Type {
+        INSERT, UPDATE, DELETE
+    }
+
+    private final Type type;
+    private final String entityName;
+    private final Serializable id;
+    private final long timestamp;
+
+    public ChangeEvent(Type type, String entityName, Serializable id) {
+        this(type, entityName, id, System.currentTimeMillis());
+    }
+
+    public ChangeEvent(Type type, String entityName, Serializable id, long timestamp) {
+        this.type = type;
+        this.entityName = entityName;
+        this.id = id;
+        this.timestamp = timestamp;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getEntityName() {
+        return entityName;
+    }
+
+    public Serializable getId() {
+        return id;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + entityName + "#" + id;
+    }
+}
@@ -0,0 +1,13 @@
+package org.example.cdc;
+
+import java.util.List;
+
+/**
+ * Receives committed change events from a {@link ChangeEventPublisher}.
+ *
+ * Events are delivered in batches on the publisher's consumer thread, in publish order.
+ * Implementations must not block for long, since that stalls delivery to every other listener.
+ */
+public interface ChangeEventListener {
+    void onEvents(List<ChangeEvent> events);
+}
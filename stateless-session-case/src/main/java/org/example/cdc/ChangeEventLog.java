@@ -0,0 +1,67 @@
+package org.example.cdc;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only change log, one tab separated line per event:
+ * {@code timestamp  type  entityName  id}.
+ *
+ * Every batch is forced to disk before the publisher hands it to listeners, so a listener that
+ * crashes can catch up by replaying the file.
+ */
+public class ChangeEventLog implements Closeable {
+
+    private final FileOutputStream out;
+    private final BufferedWriter writer;
+
+    public ChangeEventLog(Path file) throws IOException {
+        this.out = new FileOutputStream(file.toFile(), true);
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    }
+
+    public void append(List<ChangeEvent> events) throws IOException {
+        for (ChangeEvent event : events) {
+            writer.write(Long.toString(event.getTimestamp()));
+            writer.write('\t');
+            writer.write(event.getType().name());
+            writer.write('\t');
+            writer.write(event.getEntityName());
+            writer.write('\t');
+            writer.write(String.valueOf(event.getId()));
+            writer.write('\n');
+        }
+        writer.flush();
+        out.getChannel().force(false);
+    }
+
+    /**
+     * Reads back every event in the log. Ids are returned as strings.
+     */
+    public static List<ChangeEvent> read(Path file) throws IOException {
+        List<ChangeEvent> events = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t", 4);
+                events.add(new ChangeEvent(ChangeEvent.Type.valueOf(fields[1]), fields[2], fields[3],
+                        Long.parseLong(fields[0])));
+            }
+        }
+        return events;
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
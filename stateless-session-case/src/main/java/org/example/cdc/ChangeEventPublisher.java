@@ -0,0 +1,248 @@
+package org.example.cdc;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * In-process change data capture stream.
+ *
+ * Committing threads {@link #publish(ChangeEvent) publish} into a lock-free ring buffer and return
+ * immediately; a single consumer thread drains the buffer in batches, appends each batch to the
+ * optional {@link ChangeEventLog} and then hands it to every registered {@link ChangeEventListener}.
+ *
+ * The consumer parks while the buffer is empty and the first publisher after that unparks it, so an
+ * idle publisher costs no CPU. When the buffer is full, publishers spin for at most the
+ * {@link #setPublishTimeout publish timeout}, then drop the event and count it in
+ * {@link #getDroppedCount()}; publishing runs inside Hibernate's after-completion callbacks and must
+ * not hold up committing threads indefinitely.
+ */
+public class ChangeEventPublisher implements AutoCloseable {
+
+    // while stopping, publishers that give up without offering do not unpark the consumer
+    private static final long STOPPING_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+
+    private final ChangeEventRingBuffer buffer;
+    private final int maxBatchSize;
+    private final List<ChangeEventListener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong failedDeliveries = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    // set by the consumer before it parks on an empty buffer, cleared by the publisher that wakes it
+    private final AtomicBoolean consumerWaiting = new AtomicBoolean();
+    // publishers between their running check and the end of their offer; the consumer only exits
+    // once this is zero, so an event accepted during close() is still delivered
+    private final AtomicInteger activePublishers = new AtomicInteger();
+
+    private volatile long delivered;
+    private volatile boolean enabled = true;
+    private volatile boolean running;
+    private volatile long publishTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(100);
+    private Path logFile;
+    private ChangeEventLog log;
+    private volatile Thread consumer;
+
+    /**
+     * @param capacity     ring buffer size, must be a power of two
+     * @param maxBatchSize upper bound on the number of events handed to listeners at once
+     */
+    public ChangeEventPublisher(int capacity, int maxBatchSize) {
+        this.buffer = new ChangeEventRingBuffer(capacity);
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Enables the durable append-only log. Must be called before {@link #start()}.
+     */
+    public void setLogFile(Path logFile) {
+        this.logFile = logFile;
+    }
+
+    public void addListener(ChangeEventListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(ChangeEventListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * While disabled, {@link #publish(ChangeEvent)} discards events without touching the buffer.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * How long {@link #publish(ChangeEvent)} waits for room in a full buffer before dropping the event.
+     */
+    public void setPublishTimeout(long timeout, TimeUnit unit) {
+        this.publishTimeoutNanos = unit.toNanos(timeout);
+    }
+
+    public synchronized void start() throws IOException {
+        if (running) {
+            return;
+        }
+        if (logFile != null) {
+            log = new ChangeEventLog(logFile);
+        }
+        running = true;
+        consumer = new Thread(this::consume, "change-event-consumer");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    /**
+     * @return false if the event was discarded because the publisher is disabled or not running,
+     * or dropped because the buffer stayed full for the whole publish timeout
+     */
+    public boolean publish(ChangeEvent event) {
+        if (!enabled) {
+            return false;
+        }
+        activePublishers.incrementAndGet();
+        try {
+            if (!running) {
+                return false;
+            }
+            if (!buffer.offer(event) && !offerWithin(event, publishTimeoutNanos)) {
+                dropped.incrementAndGet();
+                return false;
+            }
+            published.incrementAndGet();
+            if (consumerWaiting.get() && consumerWaiting.compareAndSet(true, false)) {
+                LockSupport.unpark(consumer);
+            }
+            return true;
+        } finally {
+            activePublishers.decrementAndGet();
+        }
+    }
+
+    private boolean offerWithin(ChangeEvent event, long timeoutNanos) {
+        long deadline = System.nanoTime() + timeoutNanos;
+        do {
+            Thread.yield();
+            if (buffer.offer(event)) {
+                return true;
+            }
+        } while (System.nanoTime() - deadline < 0);
+        return false;
+    }
+
+    /**
+     * Blocks until every event published so far has been handed to the listeners.
+     *
+     * @return false if the timeout elapsed first
+     */
+    public boolean awaitDelivery(long timeout, TimeUnit unit) throws InterruptedException {
+        long target = published.get();
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (delivered < target) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(1);
+        }
+        return true;
+    }
+
+    public long getPublishedCount() {
+        return published.get();
+    }
+
+    public long getDeliveredCount() {
+        return delivered;
+    }
+
+    /**
+     * Number of events dropped because the buffer stayed full for the whole publish timeout.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Number of batches that a listener or the log failed to process.
+     */
+    public long getFailedDeliveryCount() {
+        return failedDeliveries.get();
+    }
+
+    private void consume() {
+        List<ChangeEvent> batch = new ArrayList<>(maxBatchSize);
+        while (true) {
+            // read before draining: once it is true, no publisher can still add to the buffer
+            boolean stopping = !running && activePublishers.get() == 0;
+            if (buffer.drainTo(batch, maxBatchSize) == 0) {
+                if (stopping) {
+                    return;
+                }
+                if (!running) {
+                    LockSupport.parkNanos(this, STOPPING_PARK_NANOS);
+                    continue;
+                }
+                // announce the wait before the last emptiness check, so a publisher that offers
+                // after that check is guaranteed to see the flag and unpark us
+                consumerWaiting.set(true);
+                if (buffer.isEmpty() && running) {
+                    LockSupport.park(this);
+                }
+                consumerWaiting.set(false);
+                continue;
+            }
+            deliver(Collections.unmodifiableList(batch));
+            delivered += batch.size();
+            batch.clear();
+        }
+    }
+
+    private void deliver(List<ChangeEvent> batch) {
+        if (log != null) {
+            try {
+                log.append(batch);
+            } catch (IOException e) {
+                failedDeliveries.incrementAndGet();
+                System.err.println("Failed to append " + batch.size() + " change events to " + logFile + ": " + e);
+            }
+        }
+        for (ChangeEventListener listener : listeners) {
+            try {
+                listener.onEvents(batch);
+            } catch (RuntimeException e) {
+                failedDeliveries.incrementAndGet();
+                System.err.println("Change event listener " + listener + " failed: " + e);
+            }
+        }
+    }
+
+    /**
+     * Stops accepting events, delivers whatever is still buffered and closes the log.
+     */
+    @Override
+    public synchronized void close() throws IOException, InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(consumer);
+        consumer.join();
+        if (log != null) {
+            log.close();
+            log = null;
+        }
+    }
+}
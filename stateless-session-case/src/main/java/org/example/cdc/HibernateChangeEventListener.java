@@ -0,0 +1,86 @@
+package org.example.cdc;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+
+/**
+ * Publishes {@link ChangeEvent}s for every entity a {@code Session} flush inserts, updates or deletes.
+ *
+ * Hibernate invokes post-commit listeners from the transaction completion callbacks, so rolled back
+ * changes are never published. {@code StatelessSession} bypasses the event system entirely; use
+ * {@link StatelessSessionChangeCapture} for those operations.
+ */
+public class HibernateChangeEventListener
+        implements PostCommitInsertEventListener, PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+    private final transient ChangeEventPublisher publisher;
+
+    public HibernateChangeEventListener(ChangeEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    /**
+     * Appends this listener to the post-commit insert, update and delete events of the session factory.
+     */
+    public void register(SessionFactory sessionFactory) {
+        EventListenerRegistry registry = sessionFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        publisher.publish(new ChangeEvent(ChangeEvent.Type.INSERT, event.getPersister().getEntityName(), event.getId()));
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        publisher.publish(new ChangeEvent(ChangeEvent.Type.UPDATE, event.getPersister().getEntityName(), event.getId()));
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        publisher.publish(new ChangeEvent(ChangeEvent.Type.DELETE, event.getPersister().getEntityName(), event.getId()));
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+        // nothing was committed, nothing to publish
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+        // nothing was committed, nothing to publish
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+        // nothing was committed, nothing to publish
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return publisher.isEnabled();
+    }
+
+    /**
+     * Still abstract in Hibernate 5.4; only {@link #requiresPostCommitHandling} is called.
+     */
+    @Override
+    @Deprecated
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return requiresPostCommitHandling(persister);
+    }
+}
@@ -0,0 +1,157 @@
+package org.example.cdc;
+
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import java.io.Serializable;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Performs {@code insert}/{@code update}/{@code delete} on a {@link StatelessSession} and publishes
+ * the matching {@link ChangeEvent}s, which Hibernate's event listeners never see for stateless sessions.
+ * Stateless writes that do not go through this class, directly or via {@link #asStatelessSession()},
+ * publish nothing.
+ *
+ * Events are buffered and published once the surrounding transaction commits: the stateless session's
+ * own transaction if it has an active one, otherwise the Spring-managed transaction of the current
+ * thread (as for a session opened on that transaction's connection). Without either, the session runs
+ * in auto-commit mode and each event is published right away.
+ */
+public class StatelessSessionChangeCapture {
+
+    private final StatelessSession session;
+    private final ChangeEventPublisher publisher;
+    private final List<ChangeEvent> pending = new ArrayList<>();
+    private Transaction registeredTransaction;
+    private boolean registeredWithSpring;
+
+    public StatelessSessionChangeCapture(StatelessSession session, ChangeEventPublisher publisher) {
+        this.session = session;
+        this.publisher = publisher;
+    }
+
+    public Serializable insert(Object entity) {
+        Serializable id = session.insert(entity);
+        record(ChangeEvent.Type.INSERT, null, entity, id);
+        return id;
+    }
+
+    public void update(Object entity) {
+        session.update(entity);
+        record(ChangeEvent.Type.UPDATE, null, entity, null);
+    }
+
+    public void delete(Object entity) {
+        session.delete(entity);
+        record(ChangeEvent.Type.DELETE, null, entity, null);
+    }
+
+    /**
+     * A {@code StatelessSession} view of the wrapped session whose {@code insert}, {@code update} and
+     * {@code delete} overloads are captured, for code that expects a plain session such as an
+     * {@code ItemWriter}. Every other method goes straight to the wrapped session.
+     */
+    public StatelessSession asStatelessSession() {
+        return (StatelessSession) Proxy.newProxyInstance(StatelessSession.class.getClassLoader(),
+                new Class<?>[]{StatelessSession.class}, (proxy, method, args) -> invoke(method, args));
+    }
+
+    private Object invoke(Method method, Object[] args) throws Throwable {
+        Object result;
+        try {
+            result = method.invoke(session, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+        ChangeEvent.Type type = writeType(method);
+        if (type != null) {
+            // insert(Object) or insert(String entityName, Object), same for update and delete
+            String entityName = args.length == 2 ? (String) args[0] : null;
+            record(type, entityName, args[args.length - 1], type == ChangeEvent.Type.INSERT ? (Serializable) result : null);
+        }
+        return result;
+    }
+
+    private static ChangeEvent.Type writeType(Method method) {
+        switch (method.getName()) {
+            case "insert":
+                return ChangeEvent.Type.INSERT;
+            case "update":
+                return ChangeEvent.Type.UPDATE;
+            case "delete":
+                return ChangeEvent.Type.DELETE;
+            default:
+                return null;
+        }
+    }
+
+    private void record(ChangeEvent.Type type, String entityName, Object entity, Serializable id) {
+        if (!publisher.isEnabled()) {
+            return;
+        }
+        SharedSessionContractImplementor implementor = (SharedSessionContractImplementor) session;
+        entityName = implementor.getEntityPersister(entityName, entity).getEntityName();
+        if (id == null) {
+            id = implementor.getEntityPersister(entityName, entity).getIdentifier(entity, implementor);
+        }
+        ChangeEvent event = new ChangeEvent(type, entityName, id);
+
+        Transaction transaction = session.getTransaction();
+        if (transaction.isActive()) {
+            if (registeredTransaction != transaction) {
+                registeredTransaction = transaction;
+                transaction.registerSynchronization(new PublishOnCommit());
+            }
+            pending.add(event);
+        } else if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            if (!registeredWithSpring) {
+                registeredWithSpring = true;
+                TransactionSynchronizationManager.registerSynchronization(new PublishOnSpringCommit());
+            }
+            pending.add(event);
+        } else {
+            publisher.publish(event);
+        }
+    }
+
+    private void publishPending(boolean committed) {
+        if (committed) {
+            for (ChangeEvent event : pending) {
+                publisher.publish(event);
+            }
+        }
+        pending.clear();
+    }
+
+    private class PublishOnCommit implements Synchronization {
+
+        @Override
+        public void beforeCompletion() {
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            publishPending(status == Status.STATUS_COMMITTED);
+            registeredTransaction = null;
+        }
+    }
+
+    private class PublishOnSpringCommit extends TransactionSynchronizationAdapter {
+
+        @Override
+        public void afterCompletion(int status) {
+            publishPending(status == TransactionSynchronization.STATUS_COMMITTED);
+            registeredWithSpring = false;
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package org.example.config;
 
 import com.alibaba.druid.pool.DruidDataSource;
+import org.example.cdc.ChangeEventPublisher;
+import org.example.cdc.HibernateChangeEventListener;
+import org.hibernate.SessionFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
@@ -73,6 +76,20 @@ public class AppConfig {
         return new TransactionTemplate(transactionManager);
     }
 
+    // 变更事件发布器，提交后的 insert/update/delete 事件经环形缓冲区批量投递给监听器
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public ChangeEventPublisher changeEventPublisher() {
+        return new ChangeEventPublisher(8192, 256);
+    }
+
+    @Bean
+    public HibernateChangeEventListener hibernateChangeEventListener(SessionFactory sessionFactory) {
+        HibernateChangeEventListener listener = new HibernateChangeEventListener(changeEventPublisher());
+        // 注册到 SessionFactory 的 post-commit 事件
+        listener.register(sessionFactory);
+        return listener;
+    }
+
     private Properties hibernateProperties() {
         Properties properties = new Properties();
         properties.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
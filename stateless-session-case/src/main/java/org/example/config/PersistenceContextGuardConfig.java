@@ -0,0 +1,30 @@
+package org.example.config;
+
+import org.example.guard.PersistenceContextGuard;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.orm.hibernate5.HibernateTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Installs a {@link PersistenceContextGuard} on the application's transaction manager.
+ * Activate with the {@code persistence-context-guard} profile.
+ *
+ * The guard fails transactions whose persistence context grows past the limit rather than clearing
+ * it, since a silent clear would drop later changes to entities the caller already loaded. A batch
+ * job that wants automatic flush and clear sets {@link PersistenceContextGuard.Mode#FLUSH_AND_CLEAR}
+ * on a guard registered with its own transaction manager.
+ */
+@Configuration
+@Profile("persistence-context-guard")
+public class PersistenceContextGuardConfig {
+
+    @Bean
+    public PersistenceContextGuard persistenceContextGuard(PlatformTransactionManager transactionManager) {
+        // 事务内持久化上下文超过 1 万个实体时直接失败
+        PersistenceContextGuard guard = new PersistenceContextGuard(10000, PersistenceContextGuard.Mode.FAIL);
+        guard.register((HibernateTransactionManager) transactionManager);
+        return guard;
+    }
+}
@@ -0,0 +1,36 @@
+package org.example.config;
+
+import org.example.cache.OffHeapUserCache;
+import org.example.cache.UserCacheInvalidator;
+import org.hibernate.SessionFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Enables the off-heap near-cache in front of {@code UserService.getUserById}.
+ * Activate with the {@code user-cache} profile.
+ */
+@Configuration
+@Profile("user-cache")
+public class UserCacheConfig {
+
+    @Bean
+    public OffHeapUserCache offHeapUserCache() {
+        // 10 万条，每个槽位 256 字节，约 25MB 堆外内存；超出槽位大小的行不缓存
+        OffHeapUserCache cache = new OffHeapUserCache(100_000, 256);
+        // HQL 批量更新、原生 SQL 和 StatelessSession 的写入不会触发失效，最多过期 60 秒
+        cache.setTimeToLive(60, TimeUnit.SECONDS);
+        return cache;
+    }
+
+    @Bean
+    public UserCacheInvalidator userCacheInvalidator(SessionFactory sessionFactory) {
+        UserCacheInvalidator invalidator = new UserCacheInvalidator(offHeapUserCache());
+        // Session 中的更新和删除提交后同步使缓存失效
+        invalidator.register(sessionFactory);
+        return invalidator;
+    }
+}
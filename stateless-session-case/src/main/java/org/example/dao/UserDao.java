@@ -5,4 +5,14 @@ import org.example.entity.User;
 public interface UserDao {
     void save(User user);
     User findById(Long id);
+
+    /**
+     * Whether the current session already holds the user, possibly with changes not yet committed.
+     */
+    boolean isLoaded(Long id);
+
+    /**
+     * Whether the current session has changes that have not been flushed.
+     */
+    boolean hasUnflushedChanges();
 }
@@ -4,6 +4,8 @@ import org.example.entity.User;
 import org.example.dao.UserDao;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
@@ -24,4 +26,16 @@ public class UserDaoImpl implements UserDao {
         Session session = sessionFactory.getCurrentSession();
         return session.get(User.class, id);
     }
+
+    @Override
+    public boolean isLoaded(Long id) {
+        SessionImplementor session = sessionFactory.getCurrentSession().unwrap(SessionImplementor.class);
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(User.class);
+        return session.getPersistenceContext().containsEntity(session.generateEntityKey(id, persister));
+    }
+
+    @Override
+    public boolean hasUnflushedChanges() {
+        return sessionFactory.getCurrentSession().isDirty();
+    }
 }
@@ -0,0 +1,275 @@
+package org.example.guard;
+
+import org.hibernate.EmptyInterceptor;
+import org.hibernate.HibernateException;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.MergeEvent;
+import org.hibernate.event.spi.MergeEventListener;
+import org.hibernate.event.spi.PersistEvent;
+import org.hibernate.event.spi.PersistEventListener;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.event.spi.SaveOrUpdateEvent;
+import org.hibernate.event.spi.SaveOrUpdateEventListener;
+import org.springframework.orm.hibernate5.HibernateTransactionManager;
+import org.springframework.orm.hibernate5.SessionHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the persistence context of transactions run by a {@link HibernateTransactionManager} bounded,
+ * so a long {@code TransactionTemplate} job that never calls {@code flush()}/{@code clear()} does not
+ * grow the session until the JVM runs out of heap.
+ *
+ * Before every save, persist, update or merge on a session bound by the transaction manager the guard
+ * checks the number of managed entities. Once it reaches {@code maxEntities} it either flushes and
+ * clears the session ({@link Mode#FLUSH_AND_CLEAR}) or throws ({@link Mode#FAIL}). Entities the caller
+ * still holds are detached by the clear, exactly as with a manual {@code flush()}/{@code clear()}:
+ * later changes to them are not flushed unless they are reattached, and their lazy associations can
+ * no longer be initialized. Only enable {@code FLUSH_AND_CLEAR} for code written with that in mind.
+ *
+ * Entities loaded by {@code get()} or queries are checked after each load. {@code FAIL} throws once
+ * the context exceeds the limit, which for a query is after its whole result has been hydrated;
+ * {@code FLUSH_AND_CLEAR} cannot clear in the middle of a query without detaching the results being
+ * returned, so there a read-heavy transaction only shrinks at its next write. Page or scroll through
+ * large reads instead.
+ *
+ * Registered as the transaction manager's entity interceptor, it also times every flush and records
+ * the persistence context size at the end of each flush that actually ran.
+ */
+public class PersistenceContextGuard extends EmptyInterceptor {
+
+    public enum Mode {
+        FLUSH_AND_CLEAR, FAIL
+    }
+
+    private final transient ThreadLocal<long[]> flushStart = new ThreadLocal<>();
+
+    private volatile int maxEntities;
+    private volatile Mode mode;
+    private transient SessionFactory sessionFactory;
+
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong totalFlushNanos = new AtomicLong();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+    private final AtomicLong lastFlushEntityCount = new AtomicLong();
+    private final AtomicLong maxObservedEntityCount = new AtomicLong();
+    private final AtomicLong guardFlushCount = new AtomicLong();
+
+    public PersistenceContextGuard(int maxEntities, Mode mode) {
+        setMaxEntities(maxEntities);
+        this.mode = mode;
+    }
+
+    /**
+     * Installs the guard as the entity interceptor of {@code transactionManager} and hooks the
+     * save/persist/update/merge and post-load events of its session factory. The session factory must
+     * already be set.
+     */
+    public void register(HibernateTransactionManager transactionManager) {
+        this.sessionFactory = transactionManager.getSessionFactory();
+        transactionManager.setEntityInterceptor(this);
+
+        EventListenerRegistry registry = sessionFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        SaveOrUpdateCheck saveOrUpdateCheck = new SaveOrUpdateCheck();
+        registry.prependListeners(EventType.SAVE, saveOrUpdateCheck);
+        registry.prependListeners(EventType.SAVE_UPDATE, saveOrUpdateCheck);
+        registry.prependListeners(EventType.UPDATE, saveOrUpdateCheck);
+        registry.prependListeners(EventType.PERSIST, new PersistCheck());
+        registry.prependListeners(EventType.MERGE, new MergeCheck());
+        registry.appendListeners(EventType.POST_LOAD, new PostLoadCheck());
+    }
+
+    public void setMaxEntities(int maxEntities) {
+        if (maxEntities <= 0) {
+            throw new IllegalArgumentException("maxEntities must be positive, got " + maxEntities);
+        }
+        this.maxEntities = maxEntities;
+    }
+
+    public int getMaxEntities() {
+        return maxEntities;
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Also called by auto-flush checks that end up not flushing; only {@link #postFlush} counts a flush.
+     */
+    @Override
+    public void preFlush(Iterator entities) {
+        flushStart.set(new long[]{System.nanoTime()});
+    }
+
+    @Override
+    public void postFlush(Iterator entities) {
+        long[] start = flushStart.get();
+        if (start == null) {
+            return;
+        }
+        flushStart.remove();
+        long elapsed = System.nanoTime() - start[0];
+        int count = 0;
+        while (entities.hasNext()) {
+            entities.next();
+            count++;
+        }
+        flushCount.incrementAndGet();
+        totalFlushNanos.addAndGet(elapsed);
+        updateMax(maxFlushNanos, elapsed);
+        lastFlushEntityCount.set(count);
+        updateMax(maxObservedEntityCount, count);
+    }
+
+    public long getFlushCount() {
+        return flushCount.get();
+    }
+
+    public long getTotalFlushNanos() {
+        return totalFlushNanos.get();
+    }
+
+    public long getMaxFlushNanos() {
+        return maxFlushNanos.get();
+    }
+
+    /**
+     * Number of managed entities in the persistence context at the end of the most recent flush.
+     */
+    public long getLastFlushEntityCount() {
+        return lastFlushEntityCount.get();
+    }
+
+    /**
+     * Largest persistence context size seen before a guarded write, after a load or at a flush.
+     */
+    public long getMaxObservedEntityCount() {
+        return maxObservedEntityCount.get();
+    }
+
+    /**
+     * Number of times the guard itself flushed and cleared a session.
+     */
+    public long getGuardFlushCount() {
+        return guardFlushCount.get();
+    }
+
+    public void resetMetrics() {
+        flushCount.set(0);
+        totalFlushNanos.set(0);
+        maxFlushNanos.set(0);
+        lastFlushEntityCount.set(0);
+        maxObservedEntityCount.set(0);
+        guardFlushCount.set(0);
+    }
+
+    private void check(EventSource session, Object entity) {
+        if (!isTransactionBound(session)) {
+            return;
+        }
+        PersistenceContext persistenceContext = session.getPersistenceContext();
+        // never flush in the middle of a cascade or an ongoing flush
+        if (persistenceContext.getCascadeLevel() > 0 || persistenceContext.isFlushing()) {
+            return;
+        }
+        int size = persistenceContext.getNumberOfManagedEntities();
+        updateMax(maxObservedEntityCount, size);
+        if (size < maxEntities) {
+            return;
+        }
+        if (mode == Mode.FAIL) {
+            throw new HibernateException("Persistence context holds " + size + " entities, limit is " + maxEntities
+                    + "; flush and clear the session periodically or use a StatelessSession");
+        }
+        // clearing would detach an entity that is already managed and make save() insert it twice
+        if (entity != null && persistenceContext.isEntryFor(entity)) {
+            return;
+        }
+        session.flush();
+        session.clear();
+        guardFlushCount.incrementAndGet();
+    }
+
+    private void checkAfterLoad(EventSource session) {
+        if (!isTransactionBound(session)) {
+            return;
+        }
+        int size = session.getPersistenceContext().getNumberOfManagedEntities();
+        updateMax(maxObservedEntityCount, size);
+        if (size > maxEntities && mode == Mode.FAIL) {
+            throw new HibernateException("Persistence context holds " + size + " entities after a load, limit is "
+                    + maxEntities + "; page through large results or use a StatelessSession");
+        }
+    }
+
+    private boolean isTransactionBound(EventSource session) {
+        if (sessionFactory == null) {
+            return false;
+        }
+        SessionHolder holder = (SessionHolder) TransactionSynchronizationManager.getResource(sessionFactory);
+        return holder != null && holder.getSession() == session;
+    }
+
+    private static void updateMax(AtomicLong max, long value) {
+        long current;
+        while (value > (current = max.get())) {
+            if (max.compareAndSet(current, value)) {
+                return;
+            }
+        }
+    }
+
+    private class SaveOrUpdateCheck implements SaveOrUpdateEventListener {
+        @Override
+        public void onSaveOrUpdate(SaveOrUpdateEvent event) {
+            check(event.getSession(), event.getObject());
+        }
+    }
+
+    private class PersistCheck implements PersistEventListener {
+        @Override
+        public void onPersist(PersistEvent event) {
+            check(event.getSession(), event.getObject());
+        }
+
+        @Override
+        public void onPersist(PersistEvent event, Map createdAlready) {
+            // cascaded persist, the guard only acts on top level operations
+        }
+    }
+
+    private class PostLoadCheck implements PostLoadEventListener {
+        @Override
+        public void onPostLoad(PostLoadEvent event) {
+            checkAfterLoad(event.getSession());
+        }
+    }
+
+    private class MergeCheck implements MergeEventListener {
+        @Override
+        public void onMerge(MergeEvent event) {
+            check(event.getSession(), event.getOriginal());
+        }
+
+        @Override
+        public void onMerge(MergeEvent event, Map copiedAlready) {
+            // cascaded merge, the guard only acts on top level operations
+        }
+    }
+}
@@ -1,11 +1,15 @@
 package org.example.service.impl;
 
+import org.example.cache.OffHeapUserCache;
 import org.example.dao.UserDao;
 import org.example.entity.User;
 import org.example.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Service
 @Transactional
@@ -14,13 +18,63 @@ public class UserServiceImpl implements UserService {
     @Autowired
     private UserDao userDao;
 
+    // 可选的堆外近端缓存，仅在启用 user-cache profile 时存在
+    @Autowired(required = false)
+    private OffHeapUserCache userCache;
+
     @Override
     public void createUser(User user) {
         userDao.save(user);
     }
 
+    /**
+     * With the near-cache enabled a hit returns a detached copy instead of the managed entity,
+     * so changes to it are not flushed. Hits need no transaction; inside a caller's transaction
+     * the cache is only filled once that transaction commits, and a user the transaction already
+     * holds is read from its session so uncommitted changes stay visible to it.
+     */
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public User getUserById(Long id) {
-        return userDao.findById(id);
+        if (userCache == null) {
+            return userDao.findById(id);
+        }
+        boolean inTransaction = TransactionSynchronizationManager.isActualTransactionActive();
+        if (inTransaction && userDao.isLoaded(id)) {
+            return userDao.findById(id);
+        }
+        User cached = userCache.get(id);
+        if (cached != null) {
+            return cached;
+        }
+        // an update committing while we load bumps the stamp, so the possibly older row is not cached
+        long stamp = userCache.invalidationStamp();
+        // a transaction with unflushed changes is still writing; don't cache rows read in the middle of it
+        boolean dirty = inTransaction && userDao.hasUnflushedChanges();
+        User user = userDao.findById(id);
+        if (user == null || dirty) {
+            return user;
+        }
+        if (!inTransaction) {
+            userCache.putIfNotInvalidatedSince(user, stamp);
+            return user;
+        }
+        // the row may carry changes this transaction flushed earlier; cache it only if they commit
+        User loaded = copyOf(user);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                userCache.putIfNotInvalidatedSince(loaded, stamp);
+            }
+        });
+        return user;
+    }
+
+    private static User copyOf(User user) {
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setName(user.getName());
+        copy.setEmail(user.getEmail());
+        return copy;
     }
 }
@@ -7,4 +7,14 @@ CREATE TABLE IF NOT EXISTS User (
 
 -- 插入初始数据
 INSERT INTO User (name, email) VALUES ('Alice', 'alice@example.com');
-INSERT INTO User (name, email) VALUES ('Bob', 'bob@example.com');
\ No newline at end of file
+INSERT INTO User (name, email) VALUES ('Bob', 'bob@example.com');
+
+-- 分块批处理作业的检查点，每行对应一个已提交的 chunk (start_id, end_id]
+CREATE TABLE IF NOT EXISTS batch_checkpoint (
+    job_name VARCHAR(100) NOT NULL,
+    start_id BIGINT NOT NULL,
+    end_id BIGINT NOT NULL,
+    item_count INT NOT NULL,
+    committed_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (job_name, start_id)
+);
@@ -4,6 +4,8 @@ import static org.junit.Assert.assertEquals;
 
 import java.util.List;
 
+import org.example.cdc.ChangeEventListener;
+import org.example.cdc.ChangeEventPublisher;
 import org.example.config.AppConfig;
 import org.example.entity.User;
 import org.hibernate.Session;
@@ -18,6 +20,8 @@ import org.springframework.context.annotation.Import;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 @RunWith(SpringJUnit4ClassRunner.class)
 @ContextConfiguration(classes = BatchProcessingTest.BatchTestConfig.class)
@@ -26,6 +30,9 @@ public class BatchProcessingTest {
     @Autowired
     private SessionFactory sessionFactory;
 
+    @Autowired
+    private ChangeEventPublisher changeEventPublisher;
+
     @Before
     public void clearData() {
         try (Session session = sessionFactory.openSession()) {
@@ -178,6 +185,103 @@ public class BatchProcessingTest {
         System.out.println("Performance improvement: " + (nonBatchTime / (double)batchTime) + "x faster with batching");
     }
 
+    /**
+     * Measures the overhead of the change event listener on the batch insert and update workloads.
+     * Both variants run once untimed to warm up the JVM, then alternate for several rounds so that
+     * neither one systematically runs on a colder JIT or a larger table; the averages are compared.
+     */
+    @Test
+    public void compareWithAndWithoutChangeEvents() throws Exception {
+        int totalRecords = 200;
+        int rounds = 5;
+        AtomicLong received = new AtomicLong();
+        ChangeEventListener listener = events -> received.addAndGet(events.size());
+        changeEventPublisher.addListener(listener);
+
+        try {
+            timeInsertAndUpdate("batch_cdc_warmup_off_", totalRecords, false);
+            timeInsertAndUpdate("batch_cdc_warmup_on_", totalRecords, true);
+
+            long withoutNanos = 0;
+            long withNanos = 0;
+            for (int round = 0; round < rounds; round++) {
+                // alternate which variant goes first in each round
+                boolean enabledFirst = round % 2 == 1;
+                long first = timeInsertAndUpdate("batch_cdc_" + round + "_a_", totalRecords, enabledFirst);
+                long second = timeInsertAndUpdate("batch_cdc_" + round + "_b_", totalRecords, !enabledFirst);
+                withNanos += enabledFirst ? first : second;
+                withoutNanos += enabledFirst ? second : first;
+            }
+
+            assertEquals(true, changeEventPublisher.awaitDelivery(5, TimeUnit.SECONDS));
+            assertEquals("One insert and one update event per record of every enabled run",
+                    2L * totalRecords * (rounds + 1), received.get());
+
+            double withoutMs = withoutNanos / 1_000_000d / rounds;
+            double withMs = withNanos / 1_000_000d / rounds;
+            System.out.printf("Insert + update of %d records, average of %d rounds after warm-up:%n", totalRecords, rounds);
+            System.out.printf("  without change events: %.1fms%n", withoutMs);
+            System.out.printf("  with change events:    %.1fms%n", withMs);
+            System.out.printf("  overhead: %.1fms (%.1f%%)%n", withMs - withoutMs, (withMs - withoutMs) * 100 / withoutMs);
+        } finally {
+            changeEventPublisher.removeListener(listener);
+            changeEventPublisher.setEnabled(true);
+        }
+    }
+
+    private long timeInsertAndUpdate(String namePrefix, int totalRecords, boolean changeEvents) {
+        changeEventPublisher.setEnabled(changeEvents);
+        long startTime = System.nanoTime();
+        insertAndUpdate(namePrefix, totalRecords);
+        long elapsed = System.nanoTime() - startTime;
+        changeEventPublisher.setEnabled(true);
+
+        // keep the table the same size for every run; bulk deletes publish no change events
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            session.createQuery("DELETE FROM User WHERE name LIKE :prefix")
+                    .setParameter("prefix", namePrefix + "%")
+                    .executeUpdate();
+            session.getTransaction().commit();
+        }
+        return elapsed;
+    }
+
+    private void insertAndUpdate(String namePrefix, int totalRecords) {
+        int batchSize = 20;
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            for (int i = 0; i < totalRecords; i++) {
+                User user = new User();
+                user.setName(namePrefix + i);
+                user.setEmail("batch" + i + "@example.com");
+                session.save(user);
+                if (i > 0 && i % batchSize == 0) {
+                    session.flush();
+                    session.clear();
+                }
+            }
+            session.getTransaction().commit();
+        }
+
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            List<User> users = session.createQuery("FROM User WHERE name LIKE :prefix", User.class)
+                    .setParameter("prefix", namePrefix + "%")
+                    .list();
+            int count = 0;
+            for (User user : users) {
+                user.setEmail("updated" + count + "@example.com");
+                session.update(user);
+                if (++count % batchSize == 0) {
+                    session.flush();
+                    session.clear();
+                }
+            }
+            session.getTransaction().commit();
+        }
+    }
+
     /**
      * Configuration class specifically for batch processing tests
      */
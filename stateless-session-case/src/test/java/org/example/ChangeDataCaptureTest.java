@@ -0,0 +1,142 @@
+package org.example;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.example.cdc.ChangeEvent;
+import org.example.cdc.ChangeEventListener;
+import org.example.cdc.ChangeEventPublisher;
+import org.example.cdc.StatelessSessionChangeCapture;
+import org.example.config.AppConfig;
+import org.example.entity.User;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = AppConfig.class)
+public class ChangeDataCaptureTest {
+
+    @Autowired
+    private SessionFactory sessionFactory;
+
+    @Autowired
+    private ChangeEventPublisher changeEventPublisher;
+
+    private final List<ChangeEvent> received = new CopyOnWriteArrayList<>();
+
+    private final ChangeEventListener collector = received::addAll;
+
+    @Before
+    public void registerCollector() throws Exception {
+        // let events from earlier tests in this context drain first
+        awaitDelivery();
+        changeEventPublisher.addListener(collector);
+    }
+
+    @After
+    public void removeCollector() {
+        changeEventPublisher.removeListener(collector);
+    }
+
+    @Test
+    public void testSessionFlushPublishesAfterCommit() throws Exception {
+        User user = new User();
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            user.setName("cdc_session");
+            user.setEmail("cdc@example.com");
+            session.save(user);
+            session.flush();
+            user.setEmail("cdc_updated@example.com");
+            session.flush();
+
+            awaitDelivery();
+            assertEquals("Nothing may be published before commit", 0, received.size());
+
+            session.getTransaction().commit();
+        }
+
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            session.delete(session.get(User.class, user.getId()));
+            session.getTransaction().commit();
+        }
+
+        awaitDelivery();
+        assertEquals(3, received.size());
+        assertEvent(received.get(0), ChangeEvent.Type.INSERT, user.getId());
+        assertEvent(received.get(1), ChangeEvent.Type.UPDATE, user.getId());
+        assertEvent(received.get(2), ChangeEvent.Type.DELETE, user.getId());
+    }
+
+    @Test
+    public void testRolledBackChangesAreNotPublished() throws Exception {
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            User user = new User();
+            user.setName("cdc_rollback");
+            user.setEmail("cdc@example.com");
+            session.save(user);
+            session.flush();
+            session.getTransaction().rollback();
+        }
+
+        awaitDelivery();
+        assertTrue(received.isEmpty());
+    }
+
+    @Test
+    public void testStatelessSessionOperationsArePublished() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        try (StatelessSession statelessSession = sessionFactory.openStatelessSession()) {
+            StatelessSessionChangeCapture capture = new StatelessSessionChangeCapture(statelessSession, changeEventPublisher);
+            statelessSession.beginTransaction();
+            for (int i = 0; i < 3; i++) {
+                User user = new User();
+                user.setName("cdc_stateless_" + i);
+                user.setEmail("cdc@example.com");
+                ids.add((Long) capture.insert(user));
+            }
+
+            awaitDelivery();
+            assertEquals("Nothing may be published before commit", 0, received.size());
+
+            statelessSession.getTransaction().commit();
+
+            // auto-commit mode: published immediately
+            User user = (User) statelessSession.get(User.class, ids.get(0));
+            user.setEmail("cdc_stateless_updated@example.com");
+            capture.update(user);
+        }
+
+        awaitDelivery();
+        assertEquals(4, received.size());
+        for (int i = 0; i < 3; i++) {
+            assertEvent(received.get(i), ChangeEvent.Type.INSERT, ids.get(i));
+        }
+        assertEvent(received.get(3), ChangeEvent.Type.UPDATE, ids.get(0));
+    }
+
+    private void awaitDelivery() throws InterruptedException {
+        assertTrue("Change events were not delivered in time", changeEventPublisher.awaitDelivery(5, TimeUnit.SECONDS));
+    }
+
+    private void assertEvent(ChangeEvent event, ChangeEvent.Type type, Long id) {
+        assertEquals(type, event.getType());
+        assertEquals(User.class.getName(), event.getEntityName());
+        assertEquals(id, event.getId());
+    }
+}
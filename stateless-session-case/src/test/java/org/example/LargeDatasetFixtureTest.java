@@ -0,0 +1,229 @@
+package org.example;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import javax.sql.DataSource;
+
+import com.alibaba.druid.pool.DruidDataSource;
+import org.example.config.AppConfig;
+import org.example.support.UserFixtureGenerator;
+import org.hibernate.SessionFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+/**
+ * Exercises the fixture generator. The load modes run against their own in-memory H2 database so they
+ * do not disturb the shared test data; snapshots work on H2 database files in a temporary directory.
+ *
+ * The snapshot test generates a small table by default; set {@code -Dfixture.rows} for a scale run,
+ * e.g. {@code -Dfixture.rows=10000000}. It prints generate and restore timings without asserting on them.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = LargeDatasetFixtureTest.FixtureTestConfig.class)
+public class LargeDatasetFixtureTest {
+
+    private static final long ROWS = Long.getLong("fixture.rows", 20_000L);
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private SessionFactory sessionFactory;
+
+    private final UserFixtureGenerator generator = new UserFixtureGenerator(42L);
+
+    @Before
+    public void truncate() throws Exception {
+        execute("TRUNCATE TABLE User");
+    }
+
+    @Test
+    public void testRowsAreDeterministicAndSkewed() {
+        UserFixtureGenerator sameSeed = new UserFixtureGenerator(42L);
+        UserFixtureGenerator otherSeed = new UserFixtureGenerator(7L);
+        for (long i = 0; i < 1000; i++) {
+            assertEquals(generator.row(i).getEmail(), sameSeed.row(i).getEmail());
+        }
+        assertNotEquals(generator.row(0).getEmail() + generator.row(1).getEmail(),
+                otherSeed.row(0).getEmail() + otherSeed.row(1).getEmail());
+
+        Map<String, Integer> firstNames = new HashMap<>();
+        int samples = 100_000;
+        for (long i = 0; i < samples; i++) {
+            firstNames.merge(generator.row(i).getName().split(" ")[0], 1, Integer::sum);
+        }
+        int max = 0;
+        int min = Integer.MAX_VALUE;
+        for (int count : firstNames.values()) {
+            max = Math.max(max, count);
+            min = Math.min(min, count);
+        }
+        assertTrue("Most common first name should cover over 20% of rows", max > samples / 5);
+        assertTrue("Rarest first name should cover under 2% of rows", min < samples / 50);
+    }
+
+    @Test
+    public void testStatelessSessionAndCsvReadLoadTheSameRows() throws Exception {
+        int rows = 5_000;
+        generator.generateWithStatelessSession(sessionFactory, rows, 1_000);
+        List<String> viaStatelessSession = readAll();
+
+        execute("TRUNCATE TABLE User");
+        generator.generateWithCsvRead(dataSource, rows, 2_000, Files.createTempDirectory("fixture"));
+        List<String> viaCsvRead = readAll();
+
+        assertEquals(rows, viaStatelessSession.size());
+        assertEquals(viaStatelessSession, viaCsvRead);
+    }
+
+    @Test
+    public void testSnapshotRestoresGeneratedDatabase() throws Exception {
+        Path directory = Files.createTempDirectory("fixture");
+        Path snapshot = directory.resolve("users.zip");
+        Path generatedDatabase = directory.resolve("generated.mv.db");
+        Path restoredDatabase = directory.resolve("restored.mv.db");
+
+        long startTimeGenerate = System.currentTimeMillis();
+        assertFalse(generator.restoreOrGenerate(snapshot, generatedDatabase, ROWS));
+        long generateTime = System.currentTimeMillis() - startTimeGenerate;
+        assertTrue(Files.exists(snapshot));
+        String generated;
+        try (Connection connection = open(generatedDatabase)) {
+            generated = summary(connection);
+        }
+
+        // restoring includes opening the database and reading every row once
+        long startTimeRestore = System.currentTimeMillis();
+        assertTrue(generator.restoreOrGenerate(snapshot, restoredDatabase, ROWS));
+        long unzipTime = System.currentTimeMillis() - startTimeRestore;
+        try (Connection connection = open(restoredDatabase)) {
+            assertEquals(generated, summary(connection));
+            long restoreTime = System.currentTimeMillis() - startTimeRestore;
+
+            // the identity column keeps counting after a restore
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("INSERT INTO User (name, email) VALUES ('after_restore', 'after_restore@example.com')");
+                try (ResultSet rs = statement.executeQuery("SELECT id FROM User WHERE name = 'after_restore'")) {
+                    rs.next();
+                    assertTrue(rs.getLong(1) > Long.parseLong(generated.split("/")[2]));
+                }
+            }
+
+            System.out.println("Generating " + ROWS + " users with CSVREAD and writing the snapshot took: " + generateTime + "ms");
+            System.out.println("Restoring " + ROWS + " users from the snapshot took: " + restoreTime + "ms ("
+                    + unzipTime + "ms to unzip the database file, the rest to open it and scan the table)");
+        }
+        assertEquals(ROWS, Long.parseLong(generated.split("/")[0]));
+
+        deleteDirectory(directory);
+    }
+
+    @Test
+    public void testSnapshotIsRegeneratedForOtherRowsOrSeed() throws Exception {
+        Path directory = Files.createTempDirectory("fixture");
+        Path snapshot = directory.resolve("users.zip");
+        Path database = directory.resolve("users.mv.db");
+
+        assertFalse(generator.restoreOrGenerate(snapshot, database, 1_000));
+        assertTrue(generator.restoreOrGenerate(snapshot, database, 1_000));
+        assertFalse("Another row count must not reuse the snapshot", generator.restoreOrGenerate(snapshot, database, 2_000));
+        try (Connection connection = open(database)) {
+            assertEquals(2_000L, Long.parseLong(summary(connection).split("/")[0]));
+        }
+
+        UserFixtureGenerator otherSeed = new UserFixtureGenerator(7L);
+        assertFalse("Another seed must not reuse the snapshot", otherSeed.restoreOrGenerate(snapshot, database, 2_000));
+        assertTrue(otherSeed.restoreOrGenerate(snapshot, database, 2_000));
+        try (Connection connection = open(database);
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT email FROM User ORDER BY id LIMIT 1")) {
+            rs.next();
+            assertEquals(otherSeed.row(0).getEmail(), rs.getString(1));
+        }
+
+        deleteDirectory(directory);
+    }
+
+    private static void deleteDirectory(Path directory) throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    private static Connection open(Path databaseFile) throws Exception {
+        return DriverManager.getConnection(UserFixtureGenerator.url(databaseFile), "sa", "");
+    }
+
+    private List<String> readAll() throws Exception {
+        List<String> rows = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT name, email FROM User ORDER BY id")) {
+            while (rs.next()) {
+                rows.add(rs.getString(1) + "|" + rs.getString(2));
+            }
+        }
+        return rows;
+    }
+
+    private static String summary(Connection connection) throws Exception {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COUNT(*), MIN(id), MAX(id), SUM(LENGTH(name)), "
+                     + "SUM(LENGTH(email)), COUNT(DISTINCT name) FROM User")) {
+            rs.next();
+            return rs.getLong(1) + "/" + rs.getLong(2) + "/" + rs.getLong(3) + "/" + rs.getLong(4)
+                    + "/" + rs.getLong(5) + "/" + rs.getLong(6);
+        }
+    }
+
+    private void execute(String sql) throws Exception {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    /**
+     * Same application context as AppConfig, on a separate in-memory database.
+     * Not annotated with @Configuration so that AppConfig's component scan does not pick it up.
+     */
+    @Import(AppConfig.class)
+    public static class FixtureTestConfig {
+
+        @Bean
+        public DataSource dataSource() {
+            DruidDataSource dataSource = new DruidDataSource();
+            dataSource.setDriverClassName("org.h2.Driver");
+            dataSource.setUrl("jdbc:h2:mem:fixturedb;DB_CLOSE_DELAY=-1");
+            dataSource.setUsername("sa");
+            dataSource.setPassword("");
+            dataSource.setInitialSize(2);
+            dataSource.setMaxActive(10);
+            return dataSource;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package org.example;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import javax.persistence.PersistenceException;
+
+import org.example.config.AppConfig;
+import org.example.entity.User;
+import org.example.guard.PersistenceContextGuard;
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = AppConfig.class)
+@ActiveProfiles("persistence-context-guard")
+public class PersistenceContextGuardTest {
+
+    @Autowired
+    private SessionFactory sessionFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private PersistenceContextGuard persistenceContextGuard;
+
+    private int originalMaxEntities;
+    private PersistenceContextGuard.Mode originalMode;
+
+    @Before
+    public void lowerLimit() {
+        originalMaxEntities = persistenceContextGuard.getMaxEntities();
+        originalMode = persistenceContextGuard.getMode();
+        persistenceContextGuard.setMaxEntities(10);
+        persistenceContextGuard.resetMetrics();
+    }
+
+    @After
+    public void restoreLimit() {
+        persistenceContextGuard.setMaxEntities(originalMaxEntities);
+        persistenceContextGuard.setMode(originalMode);
+    }
+
+    /**
+     * Same workload as SessionTest.testBulkInsertWithTransactionTemplate, but without
+     * calling flush()/clear(): the guard has to keep the persistence context bounded.
+     */
+    @Test
+    public void testFlushAndClearWhenLimitReached() {
+        persistenceContextGuard.setMode(PersistenceContextGuard.Mode.FLUSH_AND_CLEAR);
+
+        int entitiesAtEnd = transactionTemplate.execute(status -> {
+            Session session = sessionFactory.getCurrentSession();
+            for (int i = 0; i < 100; i++) {
+                User user = new User();
+                user.setName("guardFlush" + i);
+                user.setEmail("aa@a.com");
+                session.save(user);
+            }
+            return session.getStatistics().getEntityCount();
+        });
+
+        assertEquals(10, entitiesAtEnd);
+        assertEquals(9, persistenceContextGuard.getGuardFlushCount());
+        assertEquals(10, persistenceContextGuard.getMaxObservedEntityCount());
+        assertTrue(persistenceContextGuard.getFlushCount() >= 9);
+        assertTrue(persistenceContextGuard.getTotalFlushNanos() > 0);
+        assertEquals(100, countUsers("guardFlush%"));
+    }
+
+    @Test
+    public void testFailFastRollsBack() {
+        persistenceContextGuard.setMode(PersistenceContextGuard.Mode.FAIL);
+
+        try {
+            transactionTemplate.execute(status -> {
+                Session session = sessionFactory.getCurrentSession();
+                for (int i = 0; i < 100; i++) {
+                    User user = new User();
+                    user.setName("guardFail" + i);
+                    user.setEmail("aa@a.com");
+                    session.save(user);
+                }
+                return null;
+            });
+            fail("Expected the guard to reject the 11th entity");
+        } catch (HibernateException expected) {
+            assertTrue(expected.getMessage().contains("limit is 10"));
+        }
+
+        assertEquals(0, countUsers("guardFail%"));
+    }
+
+    @Test
+    public void testSessionsOutsideTheTransactionManagerAreNotGuarded() {
+        persistenceContextGuard.setMode(PersistenceContextGuard.Mode.FAIL);
+
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            for (int i = 0; i < 20; i++) {
+                User user = new User();
+                user.setName("guardUnbound" + i);
+                user.setEmail("aa@a.com");
+                session.save(user);
+            }
+            assertEquals(20, session.getStatistics().getEntityCount());
+            session.getTransaction().commit();
+        }
+
+        assertEquals(0, persistenceContextGuard.getGuardFlushCount());
+    }
+
+    /**
+     * The load-everything pattern of SessionTest.testBatchUpdate: the query alone grows the context past the limit.
+     */
+    @Test
+    public void testFailFastOnLargeQueryResult() {
+        insertUnguarded("guardLoad", 20);
+        persistenceContextGuard.setMode(PersistenceContextGuard.Mode.FAIL);
+
+        try {
+            transactionTemplate.execute(status -> sessionFactory.getCurrentSession()
+                    .createQuery("FROM User WHERE name LIKE 'guardLoad%'", User.class)
+                    .list());
+            fail("Expected the guard to reject loading more than 10 entities");
+        } catch (PersistenceException expected) {
+            // Query.list() wraps the guard's HibernateException
+            assertTrue(expected.getCause().getMessage().contains("20 entities after a load"));
+        }
+        assertEquals(20, persistenceContextGuard.getMaxObservedEntityCount());
+    }
+
+    /**
+     * A query with a managed but unchanged entity runs an auto-flush check that calls preFlush
+     * and then skips the flush; that must not be recorded as a flush.
+     */
+    @Test
+    public void testSkippedAutoFlushIsNotRecorded() {
+        long[] beforeCommit = transactionTemplate.execute(status -> {
+            Session session = sessionFactory.getCurrentSession();
+            session.get(User.class, 1L);
+            session.createQuery("FROM User WHERE name = 'guardNobody'", User.class).list();
+            return new long[]{persistenceContextGuard.getFlushCount(), persistenceContextGuard.getLastFlushEntityCount()};
+        });
+
+        assertEquals(0, beforeCommit[0]);
+        assertEquals(0, beforeCommit[1]);
+        // the commit flush is real
+        assertEquals(1, persistenceContextGuard.getFlushCount());
+        assertEquals(1, persistenceContextGuard.getLastFlushEntityCount());
+    }
+
+    private void insertUnguarded(String namePrefix, int count) {
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            for (int i = 0; i < count; i++) {
+                User user = new User();
+                user.setName(namePrefix + i);
+                user.setEmail("aa@a.com");
+                session.save(user);
+            }
+            session.getTransaction().commit();
+        }
+    }
+
+    private long countUsers(String namePattern) {
+        try (Session session = sessionFactory.openSession()) {
+            return session.createQuery("select count(u) from User u where u.name like :name", Long.class)
+                    .setParameter("name", namePattern)
+                    .uniqueResult();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package org.example;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.Map;
+
+import org.example.entity.User;
+import org.example.support.CapturedStatement;
+import org.example.support.SqlStatementCapture;
+import org.example.support.SqlStatementCaptureConfig;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = SqlStatementCaptureConfig.class)
+public class SqlStatementCaptureTest {
+
+    @Autowired
+    private SessionFactory sessionFactory;
+
+    @Autowired
+    private SqlStatementCapture sqlCapture;
+
+    @Before
+    public void resetCapture() {
+        sqlCapture.reset();
+    }
+
+    /**
+     * User uses an IDENTITY id, so Hibernate has to execute every insert on its own
+     * to read back the generated key, even with a flush per batch interval.
+     */
+    @Test
+    public void testIdentityInsertsAreNotBatched() {
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            for (int i = 0; i < 10; i++) {
+                User user = new User();
+                user.setName("capture_insert_" + i);
+                user.setEmail("capture" + i + "@example.com");
+                session.save(user);
+            }
+            session.flush();
+            session.getTransaction().commit();
+        }
+
+        sqlCapture.assertInsertCount(10);
+        sqlCapture.assertBatches(0);
+
+        Map<String, Integer> repeated = sqlCapture.repeatedStatements();
+        assertEquals("The same insert should be reported once", 1, repeated.size());
+        assertEquals(Integer.valueOf(10), repeated.values().iterator().next());
+    }
+
+    @Test
+    public void testJdbcBatchIsCaptured() {
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            session.doWork(connection -> {
+                try (PreparedStatement ps = connection.prepareStatement("INSERT INTO User (name, email) VALUES (?, ?)")) {
+                    for (int i = 0; i < 5; i++) {
+                        ps.setString(1, "capture_batch_" + i);
+                        ps.setString(2, "capture_batch" + i + "@example.com");
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+            });
+            session.getTransaction().commit();
+        }
+
+        sqlCapture.assertBatches(1);
+        sqlCapture.assertStatementCount(1);
+        sqlCapture.assertNoRepeatedStatements();
+
+        List<CapturedStatement> batches = sqlCapture.getBatches();
+        assertEquals(5, batches.get(0).getBatchSize());
+        assertEquals(CapturedStatement.Type.INSERT, batches.get(0).getType());
+    }
+
+    @Test
+    public void testRepeatedSelectsAreReported() {
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            session.get(User.class, 1L);
+            session.get(User.class, 2L);
+            // served from the persistence context, no SQL expected
+            session.get(User.class, 1L);
+            session.getTransaction().commit();
+        }
+
+        sqlCapture.assertSelectCount(2);
+        assertEquals(1, sqlCapture.repeatedStatements().size());
+        assertTrue("Loading users one by one should be flagged",
+                sqlCapture.repeatedStatements().keySet().iterator().next().toLowerCase().startsWith("select"));
+        System.out.println(sqlCapture.report());
+    }
+
+    /**
+     * Separate sessions without a transaction run in auto-commit mode, usually on the same pooled
+     * connection; their statements belong to unrelated operations and must not count as repeats.
+     */
+    @Test
+    public void testAutoCommitOperationsAreNotGroupedTogether() {
+        for (long id = 1; id <= 3; id++) {
+            try (Session session = sessionFactory.openSession()) {
+                session.get(User.class, id);
+            }
+        }
+
+        sqlCapture.assertSelectCount(3);
+        sqlCapture.assertNoRepeatedStatements();
+    }
+}
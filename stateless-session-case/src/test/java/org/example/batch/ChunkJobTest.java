@@ -0,0 +1,278 @@
+package org.example.batch;
+
+import org.example.cdc.ChangeEvent;
+import org.example.cdc.ChangeEventListener;
+import org.example.cdc.ChangeEventPublisher;
+import org.example.config.AppConfig;
+import org.example.entity.User;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = AppConfig.class)
+public class ChunkJobTest {
+
+    @Autowired
+    private SessionFactory sessionFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ChangeEventPublisher changeEventPublisher;
+
+    @Test
+    public void testParallelChunksCommitEveryItem() {
+        insertUsers("chunk_parallel_", 250);
+
+        ChunkJob<User, User> job = new ChunkJob<>("chunk-parallel", sessionFactory, transactionTemplate,
+                new UserItemReader("chunk_parallel_%"), this::updateEmail, this::updateAll);
+        job.setChunkSize(50);
+        job.setThreads(4);
+
+        JobReport report = job.run();
+        System.out.println(report);
+
+        assertEquals(5, report.getChunksCommitted());
+        assertEquals(250, report.getRead().getItems());
+        assertEquals(250, report.getProcess().getItems());
+        assertEquals(250, report.getWrite().getItems());
+        assertTrue(report.getWrite().getItemsPerSecond() > 0);
+        assertEquals(250, countUsers("chunk_parallel_%", "updated%"));
+        assertEquals(0, countCheckpoints("chunk-parallel"));
+    }
+
+    /**
+     * The first run fails in the third chunk. The two chunks before it stay committed and
+     * checkpointed, and the second run continues from there without reading them again.
+     */
+    @Test
+    public void testRestartResumesFromCheckpoint() {
+        insertUsers("chunk_restart_", 200);
+        boolean[] failing = {true};
+
+        ChunkJob<User, User> job = new ChunkJob<>("chunk-restart", sessionFactory, transactionTemplate,
+                new UserItemReader("chunk_restart_%"),
+                user -> {
+                    if (failing[0] && user.getName().equals("chunk_restart_120")) {
+                        throw new IllegalStateException("simulated crash");
+                    }
+                    return updateEmail(user);
+                },
+                this::updateAll);
+        job.setChunkSize(50);
+
+        try {
+            job.run();
+            fail("Expected the first run to fail");
+        } catch (IllegalStateException expected) {
+            assertEquals("simulated crash", expected.getCause().getMessage());
+        }
+        assertEquals(100, countUsers("chunk_restart_%", "updated%"));
+        assertEquals(2, countCheckpoints("chunk-restart"));
+
+        failing[0] = false;
+        JobReport report = job.run();
+
+        assertEquals(2, report.getChunksSkippedOnRestart());
+        assertEquals(2, report.getChunksCommitted());
+        assertEquals(100, report.getRead().getItems());
+        assertEquals(200, countUsers("chunk_restart_%", "updated%"));
+        assertEquals(0, countCheckpoints("chunk-restart"));
+    }
+
+    /**
+     * A previous run committed the first and third chunk while the second one failed. Before the
+     * restart, the first row of the failed range is deleted, so the re-read chunk ends at a different
+     * id; the committed third range must still be skipped rather than written again.
+     */
+    @Test
+    public void testRestartSkipsCommittedRangesAfterBoundariesShift() {
+        insertUsers("chunk_shift_", 200);
+        List<Long> ids = userIds("chunk_shift_%");
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            session.doWork(connection -> {
+                CheckpointStore store = new CheckpointStore();
+                store.save(connection, "chunk-shift", 0, ids.get(49), 50);
+                store.save(connection, "chunk-shift", ids.get(99), ids.get(149), 50);
+            });
+            session.createQuery("DELETE FROM User WHERE id = :id").setParameter("id", ids.get(50)).executeUpdate();
+            session.getTransaction().commit();
+        }
+
+        List<Long> written = new CopyOnWriteArrayList<>();
+        ChunkJob<User, User> job = new ChunkJob<>("chunk-shift", sessionFactory, transactionTemplate,
+                new UserItemReader("chunk_shift_%"), this::updateEmail,
+                (session, users) -> {
+                    for (User user : users) {
+                        written.add(user.getId());
+                        session.update(user);
+                    }
+                });
+        job.setChunkSize(50);
+
+        JobReport report = job.run();
+
+        List<Long> expected = new ArrayList<>(ids.subList(51, 100));
+        expected.addAll(ids.subList(150, 200));
+        assertEquals(expected, written);
+        assertEquals(2, report.getChunksSkippedOnRestart());
+        assertEquals(0, countCheckpoints("chunk-shift"));
+    }
+
+    @Test
+    public void testSkipAndRetryPolicies() {
+        insertUsers("chunk_policy_", 100);
+        Set<Long> failedOnce = ConcurrentHashMap.newKeySet();
+
+        ChunkJob<User, User> job = new ChunkJob<>("chunk-policy", sessionFactory, transactionTemplate,
+                new UserItemReader("chunk_policy_%"),
+                user -> {
+                    if (user.getName().equals("chunk_policy_7") || user.getName().equals("chunk_policy_8")) {
+                        throw new IllegalArgumentException("bad row " + user.getName());
+                    }
+                    return updateEmail(user);
+                },
+                (session, users) -> {
+                    for (User user : users) {
+                        // every full chunk fails once, then succeeds on retry
+                        if (users.size() > 1 && failedOnce.add(users.get(0).getId())) {
+                            throw new TransientWriteException();
+                        }
+                        if (user.getName().equals("chunk_policy_42")) {
+                            throw new IllegalArgumentException("unwritable row");
+                        }
+                        session.update(user);
+                    }
+                });
+        job.setChunkSize(25);
+        job.setRetryLimit(1);
+        job.setSkipLimit(3);
+        job.addRetryableException(TransientWriteException.class);
+        job.addSkippableException(IllegalArgumentException.class);
+
+        JobReport report = job.run();
+
+        assertEquals(4, report.getChunksCommitted());
+        assertEquals(3, report.getItemsSkipped());
+        assertTrue(report.getRetries() >= 4);
+        assertEquals(97, countUsers("chunk_policy_%", "updated%"));
+    }
+
+    /**
+     * With a publisher set, the writer's stateless updates are published once their chunk commits;
+     * the chunk that fails publishes nothing.
+     */
+    @Test
+    public void testWritesPublishChangeEventsAfterChunkCommit() throws Exception {
+        insertUsers("chunk_cdc_", 100);
+        List<Long> ids = userIds("chunk_cdc_%");
+        assertTrue(changeEventPublisher.awaitDelivery(5, TimeUnit.SECONDS));
+        List<ChangeEvent> received = new CopyOnWriteArrayList<>();
+        ChangeEventListener collector = received::addAll;
+        changeEventPublisher.addListener(collector);
+        try {
+            ChunkJob<User, User> job = new ChunkJob<>("chunk-cdc", sessionFactory, transactionTemplate,
+                    new UserItemReader("chunk_cdc_%"), this::updateEmail,
+                    (session, users) -> {
+                        updateAll(session, users);
+                        if (users.get(0).getName().equals("chunk_cdc_50")) {
+                            throw new IllegalStateException("simulated crash");
+                        }
+                    });
+            job.setChunkSize(50);
+            job.setChangeEventPublisher(changeEventPublisher);
+
+            try {
+                job.run();
+                fail("Expected the second chunk to fail");
+            } catch (IllegalStateException expected) {
+                assertEquals("simulated crash", expected.getCause().getMessage());
+            }
+            assertTrue(changeEventPublisher.awaitDelivery(5, TimeUnit.SECONDS));
+        } finally {
+            changeEventPublisher.removeListener(collector);
+        }
+
+        List<Long> published = new ArrayList<>();
+        for (ChangeEvent event : received) {
+            assertEquals(ChangeEvent.Type.UPDATE, event.getType());
+            assertEquals(User.class.getName(), event.getEntityName());
+            published.add((Long) event.getId());
+        }
+        assertEquals(ids.subList(0, 50), published);
+    }
+
+    private User updateEmail(User user) {
+        user.setEmail("updated_" + user.getName() + "@example.com");
+        return user;
+    }
+
+    private void updateAll(StatelessSession session, List<User> users) {
+        for (User user : users) {
+            session.update(user);
+        }
+    }
+
+    private void insertUsers(String namePrefix, int count) {
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            session.beginTransaction();
+            for (int i = 0; i < count; i++) {
+                User user = new User();
+                user.setName(namePrefix + i);
+                user.setEmail("original" + i + "@example.com");
+                session.insert(user);
+            }
+            session.getTransaction().commit();
+        }
+    }
+
+    private List<Long> userIds(String namePattern) {
+        try (Session session = sessionFactory.openSession()) {
+            return session.createQuery("select u.id from User u where u.name like :name order by u.id", Long.class)
+                    .setParameter("name", namePattern)
+                    .list();
+        }
+    }
+
+    private long countUsers(String namePattern, String emailPattern) {
+        try (Session session = sessionFactory.openSession()) {
+            return session.createQuery(
+                    "select count(u) from User u where u.name like :name and u.email like :email", Long.class)
+                    .setParameter("name", namePattern)
+                    .setParameter("email", emailPattern)
+                    .uniqueResult();
+        }
+    }
+
+    private long countCheckpoints(String jobName) {
+        try (Session session = sessionFactory.openSession()) {
+            Number count = (Number) session.createNativeQuery("SELECT COUNT(*) FROM batch_checkpoint WHERE job_name = :job")
+                    .setParameter("job", jobName)
+                    .uniqueResult();
+            return count.longValue();
+        }
+    }
+
+    private static class TransientWriteException extends RuntimeException {
+    }
+}
@@ -0,0 +1,227 @@
+package org.example.cache;
+
+import org.example.entity.User;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class OffHeapUserCacheTest {
+
+    @Test
+    public void testPutAndGet() {
+        OffHeapUserCache cache = new OffHeapUserCache(16, 64);
+        User alice = user(1L, "Alice", "alice@example.com");
+        cache.put(alice);
+        cache.put(user(2L, "Zoë", null));
+
+        User cached = cache.get(1L);
+        assertNotSame(alice, cached);
+        assertEquals(Long.valueOf(1L), cached.getId());
+        assertEquals("Alice", cached.getName());
+        assertEquals("alice@example.com", cached.getEmail());
+
+        User unicode = cache.get(2L);
+        assertEquals("Zoë", unicode.getName());
+        assertNull(unicode.getEmail());
+
+        assertNull(cache.get(3L));
+        assertEquals(2, cache.size());
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void testPutOverwritesAndInvalidateRemoves() {
+        OffHeapUserCache cache = new OffHeapUserCache(16, 64);
+        cache.put(user(1L, "Alice", "alice@example.com"));
+        cache.put(user(1L, "Alice", "alice@new.example.com"));
+        assertEquals(1, cache.size());
+        assertEquals("alice@new.example.com", cache.get(1L).getEmail());
+
+        cache.invalidate(1L);
+        assertNull(cache.get(1L));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testRowsLargerThanSlotAreNotCached() {
+        OffHeapUserCache cache = new OffHeapUserCache(16, 32);
+        cache.put(user(1L, "short", "a@b.c"));
+        char[] longName = new char[40];
+        Arrays.fill(longName, 'x');
+        cache.put(user(1L, new String(longName), "a@b.c"));
+
+        assertNull("An oversized update must drop the stale row", cache.get(1L));
+    }
+
+    /**
+     * With every slot taken, CLOCK gives recently read entries a second chance
+     * and evicts the first entry that was not touched since the hand last passed.
+     */
+    @Test
+    public void testClockEvictsUnreferencedEntries() {
+        OffHeapUserCache cache = new OffHeapUserCache(4, 64);
+        for (long id = 1; id <= 4; id++) {
+            cache.put(user(id, "user" + id, "user" + id + "@example.com"));
+        }
+        // first pass clears every reference bit and evicts user 1
+        cache.put(user(5L, "user5", "user5@example.com"));
+        assertNull(cache.get(1L));
+        assertEquals(1, cache.getEvictions());
+
+        // user 2 is touched again, so user 3 is the next victim
+        assertNotNull(cache.get(2L));
+        cache.put(user(6L, "user6", "user6@example.com"));
+        assertNotNull(cache.get(2L));
+        assertNull(cache.get(3L));
+        assertEquals(4, cache.size());
+    }
+
+    /**
+     * A reader takes the stamp, another thread invalidates the user, then the reader tries to cache
+     * the row it loaded before the change.
+     */
+    @Test
+    public void testPutAfterInvalidationIsDropped() {
+        OffHeapUserCache cache = new OffHeapUserCache(16, 64);
+
+        long stamp = cache.invalidationStamp();
+        cache.invalidate(1L);
+        assertFalse(cache.putIfNotInvalidatedSince(user(1L, "Alice", "old@example.com"), stamp));
+        assertNull(cache.get(1L));
+
+        stamp = cache.invalidationStamp();
+        assertTrue(cache.putIfNotInvalidatedSince(user(1L, "Alice", "new@example.com"), stamp));
+        assertEquals("new@example.com", cache.get(1L).getEmail());
+    }
+
+    @Test
+    public void testEntriesExpireAfterTimeToLive() throws Exception {
+        OffHeapUserCache cache = new OffHeapUserCache(16, 64);
+        cache.setTimeToLive(50, TimeUnit.MILLISECONDS);
+        cache.put(user(1L, "Alice", "alice@example.com"));
+        assertNotNull(cache.get(1L));
+
+        Thread.sleep(100);
+        assertNull(cache.get(1L));
+        assertEquals(0, cache.size());
+
+        // a fresh put starts a new lifetime for the reused slot
+        cache.put(user(2L, "Bob", "bob@example.com"));
+        assertNotNull(cache.get(2L));
+    }
+
+    /**
+     * Random puts and invalidations checked against a HashMap, to exercise probing and
+     * backward-shift deletion across clustered buckets.
+     */
+    @Test
+    public void testMatchesHashMapUnderRandomOperations() {
+        int capacity = 512;
+        OffHeapUserCache cache = new OffHeapUserCache(capacity, 64);
+        Map<Long, String> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 100000; i++) {
+            long id = random.nextInt(capacity / 2);
+            if (random.nextInt(3) == 0) {
+                cache.invalidate(id);
+                expected.remove(id);
+            } else {
+                String email = "u" + id + "_" + i + "@example.com";
+                cache.put(user(id, "u" + id, email));
+                expected.put(id, email);
+            }
+        }
+
+        assertEquals(expected.size(), cache.size());
+        for (long id = 0; id < capacity / 2; id++) {
+            User cached = cache.get(id);
+            String email = expected.get(id);
+            if (email == null) {
+                assertNull(cached);
+            } else {
+                assertEquals(email, cached.getEmail());
+            }
+        }
+    }
+
+    /**
+     * The off-heap cache must retain well under half the heap of a HashMap<Long, User> holding the
+     * same users, since only its index lives on the heap. Get latency of both is reported.
+     */
+    @Test
+    public void testRetainsLessHeapThanHashMap() {
+        int totalUsers = 200000;
+        Random random = new Random(7);
+
+        long baseline = usedHeap();
+        Map<Long, User> onHeap = new HashMap<>();
+        for (long id = 1; id <= totalUsers; id++) {
+            onHeap.put(id, user(id, "user_" + id, "user" + id + "@example.com"));
+        }
+        long onHeapBytes = usedHeap() - baseline;
+
+        baseline = usedHeap();
+        OffHeapUserCache offHeap = new OffHeapUserCache(totalUsers, 64);
+        for (long id = 1; id <= totalUsers; id++) {
+            offHeap.put(user(id, "user_" + id, "user" + id + "@example.com"));
+        }
+        long offHeapCacheHeapBytes = usedHeap() - baseline;
+        assertEquals(totalUsers, offHeap.size());
+
+        long[] ids = new long[200000];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = 1 + random.nextInt(totalUsers);
+        }
+
+        long blackhole = 0;
+        long startTimeOnHeap = System.nanoTime();
+        for (long id : ids) {
+            blackhole += onHeap.get(id).getEmail().length();
+        }
+        long onHeapNanos = System.nanoTime() - startTimeOnHeap;
+
+        long startTimeOffHeap = System.nanoTime();
+        for (long id : ids) {
+            blackhole += offHeap.get(id).getEmail().length();
+        }
+        long offHeapNanos = System.nanoTime() - startTimeOffHeap;
+
+        System.out.println("HashMap<Long, User> with " + totalUsers + " users retained ~" + onHeapBytes / 1024 + "KB of heap");
+        System.out.println("OffHeapUserCache with " + totalUsers + " users retained ~" + offHeapCacheHeapBytes / 1024
+                + "KB of heap (index " + offHeap.getIndexHeapBytes() / 1024 + "KB) and "
+                + offHeap.getOffHeapBytes() / 1024 + "KB off heap");
+        System.out.println("HashMap get: " + onHeapNanos / ids.length + "ns, OffHeapUserCache get: "
+                + offHeapNanos / ids.length + "ns (checksum " + blackhole + ")");
+        assertTrue("Off-heap cache retained " + offHeapCacheHeapBytes + " bytes of heap, HashMap " + onHeapBytes,
+                offHeapCacheHeapBytes < onHeapBytes / 2);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static User user(Long id, String name, String email) {
+        User user = new User();
+        user.setId(id);
+        user.setName(name);
+        user.setEmail(email);
+        return user;
+    }
+}
@@ -0,0 +1,219 @@
+package org.example.cdc;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ChangeEventPublisherTest {
+
+    private Path logFile;
+
+    @Before
+    public void createLogFile() throws Exception {
+        logFile = Files.createTempFile("change-events", ".log");
+    }
+
+    @After
+    public void deleteLogFile() throws Exception {
+        Files.deleteIfExists(logFile);
+    }
+
+    /**
+     * Several producers publish through a buffer much smaller than the number of events,
+     * so they have to wait on the consumer. Every event must arrive exactly once and
+     * each producer's events must keep their order.
+     */
+    @Test
+    public void testConcurrentProducersDeliverEveryEventInOrder() throws Exception {
+        int producers = 4;
+        int eventsPerProducer = 10000;
+        int maxBatchSize = 32;
+
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        List<ChangeEvent> received = new CopyOnWriteArrayList<>();
+
+        ChangeEventPublisher publisher = new ChangeEventPublisher(64, maxBatchSize);
+        publisher.addListener(events -> {
+            batchSizes.add(events.size());
+            received.addAll(events);
+        });
+        publisher.start();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            String entityName = "producer" + p;
+            Thread thread = new Thread(() -> {
+                for (long i = 0; i < eventsPerProducer; i++) {
+                    publisher.publish(new ChangeEvent(ChangeEvent.Type.INSERT, entityName, i));
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertTrue(publisher.awaitDelivery(10, TimeUnit.SECONDS));
+        publisher.close();
+
+        assertEquals(producers * eventsPerProducer, received.size());
+        long[] next = new long[producers];
+        for (ChangeEvent event : received) {
+            int producer = Integer.parseInt(event.getEntityName().substring("producer".length()));
+            assertEquals(next[producer]++, event.getId());
+        }
+        for (int size : batchSizes) {
+            assertTrue("Batch of " + size + " exceeds the maximum", size <= maxBatchSize);
+        }
+        assertEquals(0, publisher.getFailedDeliveryCount());
+    }
+
+    @Test
+    public void testEventsAreAppendedToLogBeforeDelivery() throws Exception {
+        List<Integer> loggedAtDelivery = new CopyOnWriteArrayList<>();
+
+        ChangeEventPublisher publisher = new ChangeEventPublisher(16, 8);
+        publisher.setLogFile(logFile);
+        publisher.addListener(events -> {
+            try {
+                loggedAtDelivery.add(ChangeEventLog.read(logFile).size());
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        publisher.start();
+
+        publisher.publish(new ChangeEvent(ChangeEvent.Type.INSERT, "User", 1L));
+        publisher.publish(new ChangeEvent(ChangeEvent.Type.UPDATE, "User", 1L));
+        publisher.publish(new ChangeEvent(ChangeEvent.Type.DELETE, "User", 1L));
+        assertTrue(publisher.awaitDelivery(5, TimeUnit.SECONDS));
+        publisher.close();
+
+        List<ChangeEvent> logged = ChangeEventLog.read(logFile);
+        assertEquals(3, logged.size());
+        assertEquals(ChangeEvent.Type.INSERT, logged.get(0).getType());
+        assertEquals(ChangeEvent.Type.UPDATE, logged.get(1).getType());
+        assertEquals(ChangeEvent.Type.DELETE, logged.get(2).getType());
+        assertEquals("User", logged.get(2).getEntityName());
+        assertEquals("1", logged.get(2).getId());
+
+        int total = 0;
+        for (int count : loggedAtDelivery) {
+            assertTrue("Listener ran before the batch was logged", count > total);
+            total = count;
+        }
+    }
+
+    @Test
+    public void testDisabledPublisherDiscardsEvents() throws Exception {
+        ChangeEventPublisher publisher = new ChangeEventPublisher(16, 8);
+        publisher.start();
+        publisher.setEnabled(false);
+
+        assertFalse(publisher.publish(new ChangeEvent(ChangeEvent.Type.INSERT, "User", 1L)));
+        assertEquals(0, publisher.getPublishedCount());
+        publisher.close();
+    }
+
+    /**
+     * A listener that blocks keeps the buffer full; publishers must give up after the timeout
+     * instead of spinning on the committing thread.
+     */
+    @Test
+    public void testFullBufferDropsEventsAfterPublishTimeout() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ChangeEventPublisher publisher = new ChangeEventPublisher(4, 1);
+        publisher.setPublishTimeout(10, TimeUnit.MILLISECONDS);
+        publisher.addListener(events -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        publisher.start();
+
+        int accepted = 0;
+        for (long i = 0; i < 10; i++) {
+            if (publisher.publish(new ChangeEvent(ChangeEvent.Type.UPDATE, "User", i))) {
+                accepted++;
+            }
+        }
+        release.countDown();
+
+        // at most one batch held by the blocked listener plus a full buffer fit
+        assertTrue("accepted " + accepted, accepted >= 4 && accepted <= 5);
+        assertEquals(10 - accepted, publisher.getDroppedCount());
+        assertEquals(accepted, publisher.getPublishedCount());
+        assertTrue(publisher.awaitDelivery(5, TimeUnit.SECONDS));
+        publisher.close();
+    }
+
+    /**
+     * The consumer parks while idle; a publish after a quiet period must wake it up.
+     */
+    @Test
+    public void testIdleConsumerIsWokenByPublish() throws Exception {
+        AtomicLong received = new AtomicLong();
+        ChangeEventPublisher publisher = new ChangeEventPublisher(16, 8);
+        publisher.addListener(events -> received.addAndGet(events.size()));
+        publisher.start();
+
+        for (int round = 0; round < 3; round++) {
+            Thread.sleep(20);
+            assertTrue(publisher.publish(new ChangeEvent(ChangeEvent.Type.INSERT, "User", (long) round)));
+            assertTrue(publisher.awaitDelivery(1, TimeUnit.SECONDS));
+        }
+        assertEquals(3, received.get());
+        publisher.close();
+    }
+
+    /**
+     * Closing while producers are still publishing: every event that publish() accepted must be
+     * delivered before close() returns, and nothing is accepted afterwards.
+     */
+    @Test
+    public void testCloseDeliversEveryAcceptedEvent() throws Exception {
+        for (int attempt = 0; attempt < 20; attempt++) {
+            AtomicLong received = new AtomicLong();
+            ChangeEventPublisher publisher = new ChangeEventPublisher(64, 16);
+            publisher.addListener(events -> received.addAndGet(events.size()));
+            publisher.start();
+
+            List<Thread> threads = new ArrayList<>();
+            for (int p = 0; p < 4; p++) {
+                Thread thread = new Thread(() -> {
+                    long id = 0;
+                    while (publisher.publish(new ChangeEvent(ChangeEvent.Type.UPDATE, "User", id++))) {
+                        // keep publishing until the publisher stops accepting events
+                    }
+                });
+                threads.add(thread);
+                thread.start();
+            }
+            Thread.sleep(2);
+            publisher.close();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            assertEquals(publisher.getPublishedCount(), received.get());
+            assertTrue(publisher.awaitDelivery(0, TimeUnit.SECONDS));
+            assertFalse(publisher.publish(new ChangeEvent(ChangeEvent.Type.UPDATE, "User", -1L)));
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package org.example.service;
+
+import com.alibaba.druid.pool.DruidDataSource;
+import org.example.cache.OffHeapUserCache;
+import org.example.config.AppConfig;
+import org.example.entity.User;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(classes = AppConfig.class)
+@ActiveProfiles("user-cache")
+public class UserServiceCacheTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private OffHeapUserCache userCache;
+
+    @Autowired
+    private SessionFactory sessionFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Before
+    public void setUp() {
+        userCache.clear();
+    }
+
+    @Test
+    public void testGetUserByIdIsServedFromCache() {
+        User first = userService.getUserById(1L);
+        assertNotNull(first);
+        assertEquals(1, userCache.size());
+
+        long hits = userCache.getHits();
+        User second = userService.getUserById(1L);
+        assertEquals(hits + 1, userCache.getHits());
+        assertNotSame(first, second);
+        assertEquals(first.getName(), second.getName());
+        assertEquals(first.getEmail(), second.getEmail());
+    }
+
+    @Test
+    public void testUpdateInAnotherSessionInvalidates() {
+        User user = new User();
+        user.setName("cache_update");
+        user.setEmail("before@example.com");
+        userService.createUser(user);
+
+        assertEquals("before@example.com", userService.getUserById(user.getId()).getEmail());
+
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            session.get(User.class, user.getId()).setEmail("after@example.com");
+            session.getTransaction().commit();
+        }
+
+        // invalidated on commit, no wait for asynchronous delivery
+        assertEquals("after@example.com", userService.getUserById(user.getId()).getEmail());
+    }
+
+    @Test
+    public void testDeleteInAnotherSessionInvalidates() {
+        User user = new User();
+        user.setName("cache_delete");
+        user.setEmail("delete@example.com");
+        userService.createUser(user);
+        assertNotNull(userService.getUserById(user.getId()));
+
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            session.delete(session.get(User.class, user.getId()));
+            session.getTransaction().commit();
+        }
+
+        assertNull(userService.getUserById(user.getId()));
+    }
+
+    @Test
+    public void testRolledBackUpdateKeepsCachedRow() {
+        User cached = userService.getUserById(1L);
+        long hits = userCache.getHits();
+
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            session.get(User.class, 1L).setEmail("rolled_back@example.com");
+            session.flush();
+            session.getTransaction().rollback();
+        }
+
+        assertEquals(cached.getEmail(), userService.getUserById(1L).getEmail());
+        assertEquals(hits + 1, userCache.getHits());
+    }
+
+    /**
+     * The caller's transaction changes user 1, reads it through the service and rolls back: it must
+     * see its own change, and neither the managed change nor the flushed row may reach the cache.
+     */
+    @Test
+    public void testOuterTransactionRollbackDoesNotCacheUncommittedRow() {
+        String committedEmail = userService.getUserById(1L).getEmail();
+        userCache.clear();
+
+        transactionTemplate.execute(status -> {
+            Session session = sessionFactory.getCurrentSession();
+            session.get(User.class, 1L).setEmail("uncommitted@example.com");
+            assertEquals("uncommitted@example.com", userService.getUserById(1L).getEmail());
+
+            session.flush();
+            session.clear();
+            assertEquals("uncommitted@example.com", userService.getUserById(1L).getEmail());
+            status.setRollbackOnly();
+            return null;
+        });
+
+        assertEquals(0, userCache.size());
+        assertEquals(committedEmail, userService.getUserById(1L).getEmail());
+    }
+
+    @Test
+    public void testReadInsideTransactionIsCachedAfterCommit() {
+        transactionTemplate.execute(status -> {
+            assertNotNull(userService.getUserById(2L));
+            assertEquals("Nothing may be cached before commit", 0, userCache.size());
+            return null;
+        });
+        assertEquals(1, userCache.size());
+    }
+
+    /**
+     * End-to-end latency of {@code getUserById} through the service proxy. Hits must be served
+     * without taking a connection from the pool.
+     */
+    @Test
+    public void testCacheHitLatencyEndToEnd() {
+        int calls = 1000;
+        DruidDataSource druid = (DruidDataSource) dataSource;
+
+        long start = System.nanoTime();
+        for (int i = 0; i < calls; i++) {
+            userCache.clear();
+            userService.getUserById(1L);
+        }
+        long missNanos = (System.nanoTime() - start) / calls;
+
+        long connections = druid.getConnectCount();
+        start = System.nanoTime();
+        for (int i = 0; i < calls; i++) {
+            assertNotNull(userService.getUserById(1L));
+        }
+        long hitNanos = (System.nanoTime() - start) / calls;
+
+        System.out.printf("getUserById: miss %d ns, hit %d ns per call%n", missNanos, hitNanos);
+        assertEquals("Cache hits must not take a connection", connections, druid.getConnectCount());
+        assertTrue(userCache.getHits() >= calls);
+    }
+}
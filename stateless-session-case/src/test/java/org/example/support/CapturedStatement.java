@@ -0,0 +1,76 @@
+package org.example.support;
+
+import java.util.Locale;
+
+/**
+ * A single SQL statement (or JDBC batch) observed by {@link SqlStatementCapture}.
+ */
+public class CapturedStatement {
+
+    public enum Type {
+        SELECT, INSERT, UPDATE, DELETE, OTHER
+    }
+
+    private final String sql;
+    private final Type type;
+    private final String transactionId;
+    private final int batchSize;
+
+    public CapturedStatement(String sql, String transactionId, int batchSize) {
+        this.sql = sql;
+        this.type = typeOf(sql);
+        this.transactionId = transactionId;
+        this.batchSize = batchSize;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Identifies the physical connection and the transaction on it in which the statement ran.
+     */
+    public String getTransactionId() {
+        return transactionId;
+    }
+
+    /**
+     * Number of parameter sets sent with {@code executeBatch()}, or 0 if the statement was not batched.
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public boolean isBatch() {
+        return batchSize > 0;
+    }
+
+    private static Type typeOf(String sql) {
+        if (sql == null) {
+            return Type.OTHER;
+        }
+        String normalized = sql.trim().toLowerCase(Locale.ROOT);
+        if (normalized.startsWith("select")) {
+            return Type.SELECT;
+        }
+        if (normalized.startsWith("insert")) {
+            return Type.INSERT;
+        }
+        if (normalized.startsWith("update")) {
+            return Type.UPDATE;
+        }
+        if (normalized.startsWith("delete")) {
+            return Type.DELETE;
+        }
+        return Type.OTHER;
+    }
+
+    @Override
+    public String toString() {
+        return isBatch() ? "[batch x" + batchSize + "] " + sql : sql;
+    }
+}
@@ -0,0 +1,225 @@
+package org.example.support;
+
+import com.alibaba.druid.filter.FilterChain;
+import com.alibaba.druid.filter.FilterEventAdapter;
+import com.alibaba.druid.pool.DruidPooledConnection;
+import com.alibaba.druid.proxy.jdbc.ConnectionProxy;
+import com.alibaba.druid.proxy.jdbc.PreparedStatementProxy;
+import com.alibaba.druid.proxy.jdbc.ResultSetProxy;
+import com.alibaba.druid.proxy.jdbc.StatementProxy;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Druid filter that records every SQL statement and JDBC batch sent through the data source,
+ * so tests can assert on how many round trips a code path issues instead of only on row counts.
+ *
+ * Call {@link #reset()} before the code under test, then use the {@code assert*} helpers.
+ * Register it with {@link SqlStatementCaptureConfig}.
+ */
+public class SqlStatementCapture extends FilterEventAdapter {
+
+    private final List<CapturedStatement> statements = new CopyOnWriteArrayList<>();
+
+    // physical connection id -> number of transactions completed on it. A "transaction" ends on
+    // commit, rollback, a change of auto-commit mode, or when the connection goes back to the pool,
+    // so auto-commit statements from unrelated borrowers are never grouped together.
+    private final Map<Long, AtomicInteger> transactionCounters = new ConcurrentHashMap<>();
+
+    public void reset() {
+        statements.clear();
+    }
+
+    public List<CapturedStatement> getStatements() {
+        return new ArrayList<>(statements);
+    }
+
+    public List<CapturedStatement> getBatches() {
+        List<CapturedStatement> batches = new ArrayList<>();
+        for (CapturedStatement statement : statements) {
+            if (statement.isBatch()) {
+                batches.add(statement);
+            }
+        }
+        return batches;
+    }
+
+    public int count(CapturedStatement.Type type) {
+        int count = 0;
+        for (CapturedStatement statement : statements) {
+            if (statement.getType() == type) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public void assertStatementCount(int expected) {
+        assertEquals("Unexpected number of SQL statements:\n" + report(), expected, statements.size());
+    }
+
+    public void assertSelectCount(int expected) {
+        assertCount(CapturedStatement.Type.SELECT, expected);
+    }
+
+    public void assertInsertCount(int expected) {
+        assertCount(CapturedStatement.Type.INSERT, expected);
+    }
+
+    public void assertUpdateCount(int expected) {
+        assertCount(CapturedStatement.Type.UPDATE, expected);
+    }
+
+    public void assertDeleteCount(int expected) {
+        assertCount(CapturedStatement.Type.DELETE, expected);
+    }
+
+    public void assertBatches(int expected) {
+        assertEquals("Unexpected number of JDBC batches:\n" + report(), expected, getBatches().size());
+    }
+
+    /**
+     * Asserts that no identical SQL string was executed more than once inside the same transaction,
+     * which is the usual signature of an N+1 select or of inserts that were not batched.
+     */
+    public void assertNoRepeatedStatements() {
+        Map<String, Integer> repeated = repeatedStatements();
+        assertEquals("Repeated statements detected:\n" + report(), 0, repeated.size());
+    }
+
+    /**
+     * Returns every SQL string that was executed more than once within a single transaction,
+     * mapped to the highest number of executions seen in any one transaction.
+     */
+    public Map<String, Integer> repeatedStatements() {
+        Map<String, Map<String, Integer>> perTransaction = new LinkedHashMap<>();
+        for (CapturedStatement statement : statements) {
+            if (statement.isBatch()) {
+                continue;
+            }
+            perTransaction.computeIfAbsent(statement.getTransactionId(), k -> new LinkedHashMap<>())
+                    .merge(statement.getSql(), 1, Integer::sum);
+        }
+
+        Map<String, Integer> repeated = new LinkedHashMap<>();
+        for (Map<String, Integer> counts : perTransaction.values()) {
+            for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+                if (entry.getValue() > 1) {
+                    repeated.merge(entry.getKey(), entry.getValue(), Math::max);
+                }
+            }
+        }
+        return repeated;
+    }
+
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("statements=").append(statements.size())
+                .append(", selects=").append(count(CapturedStatement.Type.SELECT))
+                .append(", inserts=").append(count(CapturedStatement.Type.INSERT))
+                .append(", updates=").append(count(CapturedStatement.Type.UPDATE))
+                .append(", deletes=").append(count(CapturedStatement.Type.DELETE))
+                .append(", batches=").append(getBatches().size())
+                .append('\n');
+        for (CapturedStatement statement : statements) {
+            sb.append("  ").append(statement).append('\n');
+        }
+        Map<String, Integer> repeated = repeatedStatements();
+        if (!repeated.isEmpty()) {
+            sb.append("repeated within a transaction:\n");
+            for (Map.Entry<String, Integer> entry : repeated.entrySet()) {
+                sb.append("  x").append(entry.getValue()).append(' ').append(entry.getKey()).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    private void assertCount(CapturedStatement.Type type, int expected) {
+        assertEquals("Unexpected number of " + type + " statements:\n" + report(), expected, count(type));
+    }
+
+    @Override
+    protected void statementExecuteUpdateAfter(StatementProxy statement, String sql, int updateCount) {
+        record(statement, sql, 0);
+    }
+
+    @Override
+    protected void statementExecuteQueryAfter(StatementProxy statement, String sql, ResultSetProxy resultSet) {
+        record(statement, sql, 0);
+    }
+
+    @Override
+    protected void statementExecuteAfter(StatementProxy statement, String sql, boolean firstResult) {
+        record(statement, sql, 0);
+    }
+
+    @Override
+    protected void statementExecuteBatchAfter(StatementProxy statement, int[] result) {
+        String sql = statement instanceof PreparedStatementProxy
+                ? ((PreparedStatementProxy) statement).getSql()
+                : statement.getBatchSql();
+        record(statement, sql, result.length);
+    }
+
+    @Override
+    public void connection_commit(FilterChain chain, ConnectionProxy connection) throws SQLException {
+        super.connection_commit(chain, connection);
+        endTransaction(connection);
+    }
+
+    @Override
+    public void connection_rollback(FilterChain chain, ConnectionProxy connection) throws SQLException {
+        super.connection_rollback(chain, connection);
+        endTransaction(connection);
+    }
+
+    @Override
+    public void connection_setAutoCommit(FilterChain chain, ConnectionProxy connection, boolean autoCommit)
+            throws SQLException {
+        super.connection_setAutoCommit(chain, connection, autoCommit);
+        endTransaction(connection);
+    }
+
+    @Override
+    public void connection_close(FilterChain chain, ConnectionProxy connection) throws SQLException {
+        // Druid connection ids are never reused, so the counter can simply be dropped
+        transactionCounters.remove(connection.getId());
+        super.connection_close(chain, connection);
+    }
+
+    @Override
+    public void dataSource_releaseConnection(FilterChain chain, DruidPooledConnection connection) throws SQLException {
+        Connection physical = connection.getConnection();
+        if (physical instanceof ConnectionProxy) {
+            endTransaction((ConnectionProxy) physical);
+        }
+        super.dataSource_releaseConnection(chain, connection);
+    }
+
+    private void record(StatementProxy statement, String sql, int batchSize) {
+        ConnectionProxy connection = statement.getConnectionProxy();
+        statements.add(new CapturedStatement(sql, transactionId(connection), batchSize));
+    }
+
+    private String transactionId(ConnectionProxy connection) {
+        return connection.getId() + ":" + transactionCounter(connection).get();
+    }
+
+    private void endTransaction(ConnectionProxy connection) {
+        transactionCounter(connection).incrementAndGet();
+    }
+
+    private AtomicInteger transactionCounter(ConnectionProxy connection) {
+        return transactionCounters.computeIfAbsent(connection.getId(), id -> new AtomicInteger());
+    }
+}
@@ -0,0 +1,47 @@
+package org.example.support;
+
+import com.alibaba.druid.pool.DruidDataSource;
+import org.example.config.AppConfig;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+import java.util.Collections;
+
+/**
+ * Test configuration that installs a {@link SqlStatementCapture} filter on the Druid data source.
+ *
+ * Deliberately not annotated with {@code @Configuration}: {@link AppConfig} component-scans
+ * {@code org.example}, test classes included, and the filter should only be active in contexts
+ * that ask for it through {@code @ContextConfiguration}.
+ */
+@Import(AppConfig.class)
+public class SqlStatementCaptureConfig {
+
+    private static final SqlStatementCapture CAPTURE = new SqlStatementCapture();
+
+    @Bean
+    public SqlStatementCapture sqlStatementCapture() {
+        return CAPTURE;
+    }
+
+    // static so the post processor is registered before the data source bean is created
+    @Bean
+    public static BeanPostProcessor sqlStatementCapturePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+                if (bean instanceof DruidDataSource) {
+                    ((DruidDataSource) bean).setProxyFilters(Collections.singletonList(CAPTURE));
+                }
+                return bean;
+            }
+
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,288 @@
+package org.example.support;
+
+import org.example.entity.User;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+
+import javax.sql.DataSource;
+import org.h2.jdbcx.JdbcDataSource;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Deterministic generator of large {@code User} tables for scale tests and benchmarks.
+ *
+ * Row {@code i} depends only on the seed and {@code i}, so every load mode produces the same data.
+ * First names, last names and email domains follow Zipf distributions, so a few values are very
+ * common and most are rare, as in real user tables.
+ *
+ * Load modes:
+ * <ul>
+ *     <li>{@link #generateWithStatelessSession}: {@code StatelessSession.insert} with a commit every
+ *     {@code batchSize} rows. {@code User} uses an IDENTITY id, so Hibernate cannot group these
+ *     inserts into JDBC batches; this mode exercises the ORM path, not the fastest one.</li>
+ *     <li>{@link #generateWithCsvRead}: rows are streamed into CSV files of {@code chunkRows} rows
+ *     and loaded by H2 with {@code INSERT ... SELECT FROM CSVREAD(...)}, entirely inside the engine.</li>
+ * </ul>
+ * {@link #snapshot} and {@link #restore} save and reload a whole file-backed H2 database: the snapshot
+ * is H2's online {@code BACKUP} of the {@code .mv.db} file, and restoring unzips that file in place
+ * before anything connects, so no row is replayed. {@link #restoreOrGenerate} combines them so later
+ * runs of a scale test start from the snapshot instead of generating again; it records the seed and row
+ * count next to the snapshot and only reuses a snapshot made with the same ones.
+ */
+public class UserFixtureGenerator {
+
+    public static final int CSV_CHUNK_ROWS = 10_000;
+
+    private static final String DATABASE_FILE_SUFFIX = ".mv.db";
+
+    private static final String METADATA_SUFFIX = ".properties";
+
+    private static final String[] FIRST_NAMES = {
+            "Wei", "James", "Maria", "Li", "John", "Anna", "Mohammed", "Elena", "David", "Yuki",
+            "Fatima", "Carlos", "Olga", "Ahmed", "Sofia", "Michael", "Priya", "Lucas", "Chen", "Emma",
+            "Ivan", "Aisha", "Pedro", "Hana", "Tom", "Nina", "Omar", "Laura", "Kenji", "Sara"
+    };
+
+    private static final String[] LAST_NAMES = {
+            "Wang", "Smith", "Garcia", "Zhang", "Kim", "Mueller", "Rossi", "Ivanov", "Silva", "Nguyen",
+            "Tanaka", "Khan", "Martin", "Lopez", "Chen", "Brown", "Novak", "Kowalski", "Jensen", "Dubois",
+            "Sato", "Ali", "Costa", "Petrov", "Singh", "Wilson", "Yilmaz", "Moreau", "Hansen", "Liu",
+            "Park", "Ortiz", "Fischer", "Rahman", "Lee", "Horvat", "Cohen", "Nakamura", "Santos", "Berg"
+    };
+
+    private static final String[] EMAIL_DOMAINS = {
+            "gmail.com", "qq.com", "outlook.com", "163.com", "yahoo.com", "example.com", "icloud.com", "proton.me"
+    };
+
+    private final long seed;
+    private final double[] firstNameCdf = zipfCdf(FIRST_NAMES.length, 1.1);
+    private final double[] lastNameCdf = zipfCdf(LAST_NAMES.length, 0.9);
+    private final double[] domainCdf = zipfCdf(EMAIL_DOMAINS.length, 1.4);
+
+    public UserFixtureGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Fills name and email of {@code user} with the values of row {@code index}.
+     */
+    public void fill(User user, long index) {
+        SplittableRandom random = new SplittableRandom(seed ^ (index * 0x9E3779B97F4A7C15L));
+        String firstName = FIRST_NAMES[sample(firstNameCdf, random.nextDouble())];
+        String lastName = LAST_NAMES[sample(lastNameCdf, random.nextDouble())];
+        String domain = EMAIL_DOMAINS[sample(domainCdf, random.nextDouble())];
+        user.setName(firstName + " " + lastName);
+        user.setEmail((firstName + "." + lastName).toLowerCase(Locale.ROOT) + index + "@" + domain);
+    }
+
+    public User row(long index) {
+        User user = new User();
+        fill(user, index);
+        return user;
+    }
+
+    /**
+     * Inserts rows {@code [0, rows)} through a {@link StatelessSession}, committing every {@code batchSize} rows.
+     */
+    public void generateWithStatelessSession(SessionFactory sessionFactory, long rows, int batchSize) {
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            session.beginTransaction();
+            User user = new User();
+            for (long i = 0; i < rows; i++) {
+                user.setId(null);
+                fill(user, i);
+                session.insert(user);
+                if ((i + 1) % batchSize == 0) {
+                    session.getTransaction().commit();
+                    session.beginTransaction();
+                }
+            }
+            session.getTransaction().commit();
+        }
+    }
+
+    /**
+     * Inserts rows {@code [0, rows)} by writing CSV files of at most {@code chunkRows} rows to
+     * {@code workDir} and bulk loading each with H2's {@code CSVREAD}. The files are deleted after loading.
+     *
+     * Each chunk is one auto-committed statement; H2 slows down sharply once a single statement
+     * inserts more than a few tens of thousands of rows, so {@link #CSV_CHUNK_ROWS} is a good default.
+     */
+    public void generateWithCsvRead(DataSource dataSource, long rows, int chunkRows, Path workDir)
+            throws IOException, SQLException {
+        Path csv = Files.createTempFile(workDir, "users-", ".csv");
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            User user = new User();
+            for (long start = 0; start < rows; start += chunkRows) {
+                long end = Math.min(rows, start + chunkRows);
+                try (BufferedWriter writer = Files.newBufferedWriter(csv, StandardCharsets.UTF_8)) {
+                    writer.write("NAME,EMAIL\n");
+                    for (long i = start; i < end; i++) {
+                        fill(user, i);
+                        writer.write(user.getName());
+                        writer.write(',');
+                        writer.write(user.getEmail());
+                        writer.write('\n');
+                    }
+                }
+                statement.executeUpdate("INSERT INTO User (name, email) SELECT NAME, EMAIL FROM CSVREAD("
+                        + quote(csv.toAbsolutePath().toString()) + ", NULL, 'charset=UTF-8')");
+            }
+        } finally {
+            Files.deleteIfExists(csv);
+        }
+    }
+
+    /**
+     * JDBC URL of the file-backed H2 database stored in {@code databaseFile}, which must end in {@code .mv.db}.
+     */
+    public static String url(Path databaseFile) {
+        String path = databaseFile.toAbsolutePath().toString();
+        if (!path.endsWith(DATABASE_FILE_SUFFIX)) {
+            throw new IllegalArgumentException("Not an H2 database file: " + databaseFile);
+        }
+        return "jdbc:h2:file:" + path.substring(0, path.length() - DATABASE_FILE_SUFFIX.length());
+    }
+
+    /**
+     * Writes a consistent copy of the database behind {@code dataSource} to the zip file {@code snapshot},
+     * while the database stays online.
+     */
+    public static void snapshot(DataSource dataSource, Path snapshot) throws SQLException {
+        execute(dataSource, "BACKUP TO " + quote(snapshot.toAbsolutePath().toString()));
+    }
+
+    /**
+     * Unzips the database file of a {@link #snapshot} to {@code databaseFile}, replacing it.
+     * Nothing may be connected to that database while it is restored.
+     */
+    public static void restore(Path snapshot, Path databaseFile) throws IOException {
+        try (ZipInputStream zip = new ZipInputStream(Files.newInputStream(snapshot))) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                if (entry.getName().endsWith(DATABASE_FILE_SUFFIX)) {
+                    copy(zip, databaseFile);
+                    return;
+                }
+            }
+        }
+        throw new IOException("No H2 database file in snapshot " + snapshot);
+    }
+
+    /**
+     * Restores {@code snapshot} into {@code databaseFile} if it exists and was generated with this seed and
+     * {@code rows}. Otherwise creates a new database there from {@code schema.sql}, fills the {@code User}
+     * table with {@code rows} rows using CSVREAD and saves the snapshot, with its seed and row count in
+     * {@code <snapshot>.properties}, for the next run. Either way the database is closed on return; open it
+     * with {@link #url(Path)}.
+     *
+     * @return true if the data came from an existing snapshot
+     */
+    public boolean restoreOrGenerate(Path snapshot, Path databaseFile, long rows) throws IOException, SQLException {
+        Path metadataFile = snapshot.resolveSibling(snapshot.getFileName() + METADATA_SUFFIX);
+        Properties metadata = metadata(rows);
+        if (Files.exists(snapshot) && metadata.equals(readMetadata(metadataFile))) {
+            restore(snapshot, databaseFile);
+            return true;
+        }
+        // a snapshot without matching metadata is from other settings or was never finished
+        Files.deleteIfExists(metadataFile);
+        Files.deleteIfExists(snapshot);
+        Files.deleteIfExists(databaseFile);
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL(url(databaseFile));
+        dataSource.setUser("sa");
+        // keeps the database open between the statements below; it closes with this connection
+        try (Connection keepOpen = dataSource.getConnection()) {
+            execute(dataSource, "RUNSCRIPT FROM 'classpath:schema.sql'");
+            execute(dataSource, "TRUNCATE TABLE User");
+            generateWithCsvRead(dataSource, rows, CSV_CHUNK_ROWS, snapshot.toAbsolutePath().getParent());
+            snapshot(dataSource, snapshot);
+        }
+        try (OutputStream out = Files.newOutputStream(metadataFile)) {
+            metadata.store(out, "UserFixtureGenerator snapshot " + snapshot.getFileName());
+        }
+        return false;
+    }
+
+    private Properties metadata(long rows) {
+        Properties metadata = new Properties();
+        metadata.setProperty("seed", Long.toString(seed));
+        metadata.setProperty("rows", Long.toString(rows));
+        return metadata;
+    }
+
+    private static Properties readMetadata(Path metadataFile) throws IOException {
+        Properties metadata = new Properties();
+        if (Files.exists(metadataFile)) {
+            try (InputStream in = Files.newInputStream(metadataFile)) {
+                metadata.load(in);
+            }
+        }
+        return metadata;
+    }
+
+    private static void copy(InputStream in, Path target) throws IOException {
+        Path temp = Files.createTempFile(target.toAbsolutePath().getParent(), "restore-", ".tmp");
+        try {
+            Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void execute(DataSource dataSource, String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private static String quote(String value) {
+        return "'" + value.replace("'", "''") + "'";
+    }
+
+    private static double[] zipfCdf(int size, double exponent) {
+        double[] cdf = new double[size];
+        double total = 0;
+        for (int rank = 1; rank <= size; rank++) {
+            total += 1 / Math.pow(rank, exponent);
+            cdf[rank - 1] = total;
+        }
+        for (int i = 0; i < size; i++) {
+            cdf[i] /= total;
+        }
+        return cdf;
+    }
+
+    private static int sample(double[] cdf, double u) {
+        int low = 0;
+        int high = cdf.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cdf[mid] < u) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}